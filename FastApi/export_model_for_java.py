@@ -0,0 +1,39 @@
+import json
+import joblib
+import numpy as np
+import pandas as pd
+import xgboost as xgb
+
+# Xuất metadata của model2 sang JSON để backend (prediction.engine=embedded) đánh giá model trong JVM.
+# File pickle không đọc được từ Java, nên danh sách triệu chứng và nhãn được ghi lại dưới dạng JSON.
+MODEL_DIR = 'model2'
+
+model = xgb.Booster()
+model.load_model(f'{MODEL_DIR}/xgboost_model_1.json')
+label_encoder = joblib.load(f'{MODEL_DIR}/label_encoder_1.pkl')
+all_symptoms = list(joblib.load(f'{MODEL_DIR}/all_symptoms_1.pkl'))
+
+with open(f'{MODEL_DIR}/all_symptoms_1.json', 'w', encoding='utf-8') as f:
+    json.dump(all_symptoms, f, ensure_ascii=False)
+with open(f'{MODEL_DIR}/label_encoder_1.json', 'w', encoding='utf-8') as f:
+    json.dump([str(c) for c in label_encoder.classes_], f, ensure_ascii=False)
+
+# Ghi lại xác suất của Python cho vài đầu vào để so sánh với kết quả trong JVM
+rng = np.random.default_rng(42)
+samples = []
+for _ in range(20):
+    chosen = sorted(rng.choice(len(all_symptoms), size=rng.integers(1, 6), replace=False))
+    row = pd.DataFrame(np.zeros((1, len(all_symptoms))), columns=all_symptoms)
+    row.iloc[0, chosen] = 1
+    probs = model.predict(
+        xgb.DMatrix(row),
+        iteration_range=(0, model.best_iteration + 1 if model.best_iteration else 0)
+    )[0]
+    samples.append({
+        "symptoms": [all_symptoms[i] for i in chosen],
+        "probabilities": [float(p) for p in probs]
+    })
+with open(f'{MODEL_DIR}/expected_outputs_1.json', 'w', encoding='utf-8') as f:
+    json.dump(samples, f, ensure_ascii=False, indent=2)
+
+print(f"Exported {len(all_symptoms)} symptoms, {len(label_encoder.classes_)} labels and {len(samples)} reference outputs")
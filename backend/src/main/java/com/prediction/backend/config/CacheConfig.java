@@ -0,0 +1,50 @@
+package com.prediction.backend.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the read-through cache over the disease and symptom catalogs.
+ * The caches are backed by Caffeine and created up front from the names
+ * below; their size, TTL and statistics are set by spring.cache.caffeine.spec
+ * (bounded by default), and their hit, miss and eviction counts are published
+ * as the actuator 'cache.*' metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /** Disease by ID. */
+    public static final String DISEASES = "diseases";
+
+    /** Disease details (with symptoms) by disease ID. */
+    public static final String DISEASE_DETAILS = "diseaseDetails";
+
+    /** Disease lists keyed by filter, e.g. "all", "severity:HIGH", "nameEn:flu". */
+    public static final String DISEASE_LISTS = "diseaseLists";
+
+    /** Symptom by ID. */
+    public static final String SYMPTOMS = "symptoms";
+
+    /** Symptom lists keyed by filter, e.g. "all", "frequency:RARE", "nameVn:sot". */
+    public static final String SYMPTOM_LISTS = "symptomLists";
+
+    /** Key of the unfiltered list in DISEASE_LISTS and SYMPTOM_LISTS. */
+    public static final String ALL = "all";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> catalogCaches(
+            @Value("${spring.cache.caffeine.spec:maximumSize=2000,expireAfterWrite=30m,recordStats}") String spec) {
+        // Tên cache lấy từ các hằng số trên để không lệch với các @Cacheable
+        return cacheManager -> {
+            cacheManager.setCacheSpecification(spec);
+            cacheManager.setCacheNames(List.of(DISEASES, DISEASE_DETAILS, DISEASE_LISTS, SYMPTOMS, SYMPTOM_LISTS));
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.prediction.backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.registry.EntryAddedEvent;
+import io.github.resilience4j.core.registry.EntryRemovedEvent;
+import io.github.resilience4j.core.registry.EntryReplacedEvent;
+import io.github.resilience4j.core.registry.RegistryEventConsumer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resilience settings for the outbound calls. The circuit breakers, retries
+ * and bulkheads themselves are configured under resilience4j.* in
+ * application.properties; Resilience4j exports their state, call and
+ * available-permit metrics. This class adds a counter of circuit breaker state
+ * transitions and of bulkhead rejections, and logs the transitions.
+ */
+@Configuration
+@Slf4j
+public class ResilienceConfig {
+
+    // Tên các instance, trùng với cấu hình resilience4j.*.instances.<tên>
+    public static final String GEMINI = "gemini";
+    public static final String PREDICTION = "prediction";
+
+    @Bean
+    public RegistryEventConsumer<CircuitBreaker> circuitBreakerTransitionRecorder(MeterRegistry meterRegistry) {
+        return new RegistryEventConsumer<>() {
+            @Override
+            public void onEntryAddedEvent(EntryAddedEvent<CircuitBreaker> event) {
+                CircuitBreaker circuitBreaker = event.getAddedEntry();
+                circuitBreaker.getEventPublisher().onStateTransition(transition -> {
+                    log.warn("Circuit breaker '{}' changed state: {}", circuitBreaker.getName(),
+                            transition.getStateTransition());
+                    Counter.builder("resilience.circuitbreaker.transitions")
+                            .description("Circuit breaker state transitions")
+                            .tag("name", circuitBreaker.getName())
+                            .tag("from", transition.getStateTransition().getFromState().name())
+                            .tag("to", transition.getStateTransition().getToState().name())
+                            .register(meterRegistry)
+                            .increment();
+                });
+            }
+
+            @Override
+            public void onEntryRemovedEvent(EntryRemovedEvent<CircuitBreaker> event) {
+            }
+
+            @Override
+            public void onEntryReplacedEvent(EntryReplacedEvent<CircuitBreaker> event) {
+            }
+        };
+    }
+
+    @Bean
+    public RegistryEventConsumer<Bulkhead> bulkheadRejectionRecorder(MeterRegistry meterRegistry) {
+        return new RegistryEventConsumer<>() {
+            @Override
+            public void onEntryAddedEvent(EntryAddedEvent<Bulkhead> event) {
+                Bulkhead bulkhead = event.getAddedEntry();
+                Counter rejected = Counter.builder("resilience.bulkhead.rejected")
+                        .description("Calls rejected because the bulkhead was full")
+                        .tag("name", bulkhead.getName())
+                        .register(meterRegistry);
+                bulkhead.getEventPublisher().onCallRejected(e -> rejected.increment());
+            }
+
+            @Override
+            public void onEntryRemovedEvent(EntryRemovedEvent<Bulkhead> event) {
+            }
+
+            @Override
+            public void onEntryReplacedEvent(EntryReplacedEvent<Bulkhead> event) {
+            }
+        };
+    }
+}
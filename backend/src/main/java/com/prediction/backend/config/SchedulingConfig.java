@@ -0,0 +1,13 @@
+package com.prediction.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled background jobs, e.g. publishing the association
+ * rules mined from the patient cases or refreshing the model vocabulary.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
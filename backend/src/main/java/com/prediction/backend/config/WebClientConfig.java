@@ -1,13 +1,106 @@
 package com.prediction.backend.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Outbound HTTP clients. Each upstream gets its own connection pool, so a slow
+ * Gemini call cannot take the connections needed by the prediction model.
+ * Pool metrics are published as reactor.netty.connection.provider.* (active,
+ * idle, pending connections) and reactor.netty.http.client.* (acquire time,
+ * response time), tagged with the pool name.
+ */
 @Configuration
 public class WebClientConfig {
+
+    public static final String GEMINI_POOL = "gemini";
+    public static final String PREDICTION_POOL = "prediction";
+
+    private static final String GEMINI_API_KEY_HEADER = "x-goog-api-key";
+
+    /**
+     * Client for the Gemini API. Services pass the full endpoint URL; the API
+     * key is sent in the x-goog-api-key header.
+     */
+    @Bean
+    public WebClient geminiWebClient(WebClient.Builder builder,
+            @Value("${gemini.api.key:}") String apiKey,
+            @Value("${http.client.gemini.max-connections:100}") int maxConnections,
+            @Value("${http.client.gemini.max-pending:500}") int maxPending,
+            @Value("${http.client.gemini.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+            @Value("${http.client.gemini.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${http.client.gemini.response-timeout:30s}") Duration responseTimeout,
+            @Value("${http.client.gemini.max-idle-time:60s}") Duration maxIdleTime,
+            @Value("${http.client.gemini.http2:false}") boolean http2) {
+        ConnectionProvider pool = pool(GEMINI_POOL, maxConnections, maxPending, pendingAcquireTimeout, maxIdleTime);
+        HttpClient httpClient = httpClient(pool, connectTimeout, responseTimeout);
+        if (http2) {
+            // Gemini dùng TLS nên có thể thương lượng HTTP/2 qua ALPN
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                // Gửi khoá qua header thay vì tham số URL để khoá không xuất hiện trong log
+                .defaultHeader(GEMINI_API_KEY_HEADER, apiKey)
+                .build();
+    }
+
+    /**
+     * Client for the FastAPI prediction model.
+     */
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().build();
+    public WebClient predictionWebClient(WebClient.Builder builder,
+            @Value("${http.client.prediction.base-url:http://127.0.0.1:8000}") String baseUrl,
+            @Value("${http.client.prediction.max-connections:50}") int maxConnections,
+            @Value("${http.client.prediction.max-pending:200}") int maxPending,
+            @Value("${http.client.prediction.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${http.client.prediction.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${http.client.prediction.response-timeout:15s}") Duration responseTimeout,
+            @Value("${http.client.prediction.max-idle-time:30s}") Duration maxIdleTime) {
+        ConnectionProvider pool = pool(PREDICTION_POOL, maxConnections, maxPending, pendingAcquireTimeout,
+                maxIdleTime);
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient(pool, connectTimeout, responseTimeout)))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    /**
+     * Bounded pool: at most maxConnections requests in flight and maxPending
+     * waiting for a connection; further requests fail fast instead of queueing.
+     */
+    private static ConnectionProvider pool(String name, int maxConnections, int maxPending,
+            Duration pendingAcquireTimeout, Duration maxIdleTime) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxPending)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    private static HttpClient httpClient(ConnectionProvider pool, Duration connectTimeout, Duration responseTimeout) {
+        return HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .compress(true)
+                .metrics(true, uri -> uri.replaceAll("\\?.*$", ""));
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,75 @@
 package com.prediction.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+/**
+ * STOMP over WebSocket. With websocket.broker.mode=simple (default) the
+ * /topic destinations are served by the in-process broker, so a message only
+ * reaches clients connected to the same instance. With
+ * websocket.broker.mode=relay they are relayed to an external STOMP broker
+ * (e.g. ActiveMQ Artemis, or RabbitMQ with the STOMP plugin), which fans them
+ * out to the clients of every backend instance.
+ * <p>
+ * The client inbound and outbound channels each get their own bounded thread
+ * pool, sized by websocket.channel.*.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String BROKER_MODE_RELAY = "relay";
+
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.client-login:guest}")
+    private String clientLogin;
+
+    @Value("${websocket.broker.relay.client-passcode:guest}")
+    private String clientPasscode;
+
+    @Value("${websocket.broker.relay.system-login:guest}")
+    private String systemLogin;
+
+    @Value("${websocket.broker.relay.system-passcode:guest}")
+    private String systemPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String virtualHost;
+
+    @Value("${websocket.broker.relay.heartbeat-interval:10000}")
+    private long heartbeatInterval;
+
+    @Value("${websocket.channel.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.channel.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.channel.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.channel.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.channel.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.channel.outbound.queue-capacity:5000}")
+    private int outboundQueueCapacity;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Đăng ký endpoint WebSocket, cho phép kết nối từ các nguồn khác nhau
@@ -21,7 +81,39 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // Định nghĩa các prefix cho message broker
-        registry.enableSimpleBroker("/topic"); // Prefix cho các topic
+        if (BROKER_MODE_RELAY.equalsIgnoreCase(brokerMode)) {
+            // Chuyển tiếp /topic tới broker STOMP bên ngoài để mọi instance cùng nhận được
+            registry.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    .setVirtualHost(virtualHost.isBlank() ? null : virtualHost)
+                    .setSystemHeartbeatSendInterval(heartbeatInterval)
+                    .setSystemHeartbeatReceiveInterval(heartbeatInterval);
+        } else {
+            registry.enableSimpleBroker("/topic"); // Prefix cho các topic
+        }
         registry.setApplicationDestinationPrefixes("/app"); // Prefix cho các message gửi đến ứng dụng
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Luồng xử lý các frame client gửi lên (@MessageMapping)
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Luồng gửi message từ broker xuống các phiên WebSocket
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+}
@@ -1,14 +1,18 @@
 package com.prediction.backend.controllers;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.prediction.backend.dto.response.ApiResponse;
 import com.prediction.backend.services.ChartService;
+import com.prediction.backend.validator.DateRangeValidator;
 
 @RestController
 @RequestMapping("/api/chart-data")
@@ -17,10 +21,13 @@ public class ChartController {
     ChartService chartService;
 
     @GetMapping
-    public ApiResponse<Map<String, Object>> getChartData() {
+    public ApiResponse<Map<String, Object>> getChartData(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        DateRangeValidator.check(from, to);
         return ApiResponse.<Map<String, Object>>builder()
                 .message("thanhcong")
-                .data(chartService.getChartData())
+                .data(chartService.getChartData(from, to))
                 .build();
     }
 }
@@ -1,59 +1,117 @@
 package com.prediction.backend.controllers;
 
 import com.prediction.backend.models.ChatMessage;
-import com.prediction.backend.repositories.ChatMessageRepository;
 import com.prediction.backend.services.ChatService;
 import com.prediction.backend.dto.request.UserDetailRequest;
 import com.prediction.backend.dto.response.ApiResponse;
+import com.prediction.backend.dto.response.BotReplyChunk;
 import com.prediction.backend.dto.response.BotResponse;
 import com.prediction.backend.dto.response.BotResponseDetail;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @RestController
 @RequestMapping("/api/chat/bot")
 public class ChatBotController {
 
         @Autowired
-        private ChatMessageRepository chatMessageRepository;
+        private ChatService chatService;
 
         @Autowired
-        private ChatService chatService;
+        private SimpMessagingTemplate messagingTemplate;
 
+        /**
+         * Replies to a user message without holding a servlet thread while the
+         * chatbot and the prediction model are called. If the request times out
+         * or the client goes away, the subscription is cancelled and the pending
+         * upstream calls with it.
+         */
         @PostMapping("/message")
-        public ApiResponse<BotResponse> chatWithBot(@RequestParam("botId") String botId,
+        public Mono<ApiResponse<BotResponse>> chatWithBot(@RequestParam("botId") String botId,
                         @RequestBody UserDetailRequest userDetailRequest) {
-                // 1. Save user message to DB
+                ChatMessage userMessage = userDetailRequest.getUserMessage();
+                return reply(botId, userMessage, Mono.defer(() -> chatService.handleData(userMessage.getContent(),
+                                userMessage.getConversationId(), userDetailRequest.getAge(),
+                                userDetailRequest.getGender(), userDetailRequest.getUnderlying_disease())));
+        }
 
+        /**
+         * Same as {@link #chatWithBot}, but pushes the reply to
+         * /topic/conversations/{id} chunk by chunk while it is generated, then
+         * pushes the persisted bot message once it is complete.
+         */
+        @PostMapping("/message/stream")
+        public Mono<ApiResponse<BotResponse>> streamChatWithBot(@RequestParam("botId") String botId,
+                        @RequestBody UserDetailRequest userDetailRequest) {
                 ChatMessage userMessage = userDetailRequest.getUserMessage();
+                String topic = "/topic/conversations/" + userMessage.getConversationId();
+                AtomicInteger sequence = new AtomicInteger();
+
+                return reply(botId, userMessage, Mono.defer(() -> chatService.handleDataStreaming(
+                                userMessage.getContent(), userMessage.getConversationId(),
+                                userDetailRequest.getAge(), userDetailRequest.getGender(),
+                                userDetailRequest.getUnderlying_disease(),
+                                delta -> messagingTemplate.convertAndSend(topic,
+                                                ApiResponse.<BotReplyChunk>builder()
+                                                                .status(1000)
+                                                                .message("Bot reply chunk")
+                                                                .data(BotReplyChunk.builder()
+                                                                                .conversationId(userMessage
+                                                                                                .getConversationId())
+                                                                                .senderId(botId)
+                                                                                .sender("bot")
+                                                                                .delta(delta)
+                                                                                .sequence(sequence.getAndIncrement())
+                                                                                .build())
+                                                                .build()))))
+                                .doOnNext(response -> messagingTemplate.convertAndSend(topic,
+                                                ApiResponse.<ChatMessage>builder()
+                                                                .status(1000)
+                                                                .message("New message")
+                                                                .data(response.getData().getData())
+                                                                .build()));
+        }
+
+        /**
+         * Saves the user message, runs the bot pipeline and saves the bot reply.
+         */
+        private Mono<ApiResponse<BotResponse>> reply(String botId, ChatMessage userMessage,
+                        Mono<BotResponseDetail> pipeline) {
                 userMessage.setTimestamp(Instant.now());
-                chatMessageRepository.save(userMessage);
-
-                BotResponseDetail responseDetail = chatService.handleData(userMessage.getContent(),
-                                userMessage.getConversationId(), userDetailRequest.getAge(), userDetailRequest.getGender(), userDetailRequest.getUnderlying_disease());
-                // 4. Create bot message
-                ChatMessage botMessage = new ChatMessage();
-                botMessage.setConversationId(userMessage.getConversationId());
-                botMessage.setSenderId(botId);
-                botMessage.setContent(responseDetail.getData());
-                botMessage.setTimestamp(Instant.now());
-                botMessage.setSender("bot");
-
-                // 5. Save bot message to DB
-                chatMessageRepository.save(botMessage);
-                BotResponse botResponse = new BotResponse(botMessage, responseDetail.isNeededDoctor(),
-                                responseDetail.getLog());
-
-                // 6. Return bot message to frontend
-                return ApiResponse.<BotResponse>builder()
-                                .message("Bot replied successfully")
-                                .data(botResponse)
-                                .build();
+
+                // 1. Queue user message for writing to DB
+                return Mono.fromCallable(() -> chatService.sendMessage(userMessage))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .then(pipeline)
+                                .flatMap(responseDetail -> {
+                                        // 4. Create bot message
+                                        ChatMessage botMessage = new ChatMessage();
+                                        botMessage.setConversationId(userMessage.getConversationId());
+                                        botMessage.setSenderId(botId);
+                                        botMessage.setContent(responseDetail.getData());
+                                        botMessage.setTimestamp(Instant.now());
+                                        botMessage.setSender("bot");
+
+                                        // 5. Queue bot message for writing to DB
+                                        return Mono.fromCallable(() -> chatService.sendMessage(botMessage))
+                                                        .subscribeOn(Schedulers.boundedElastic())
+                                                        .map(saved -> new BotResponse(saved,
+                                                                        responseDetail.isNeededDoctor(),
+                                                                        responseDetail.getLog()));
+                                })
+                                // 6. Return bot message to frontend
+                                .map(botResponse -> ApiResponse.<BotResponse>builder()
+                                                .message("Bot replied successfully")
+                                                .data(botResponse)
+                                                .build());
         }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.prediction.backend.controllers;
 
+import com.prediction.backend.dto.request.ReadReceiptRequest;
 import com.prediction.backend.dto.response.ApiResponse;
+import com.prediction.backend.dto.response.ReadReceiptResponse;
 import com.prediction.backend.models.ChatMessage;
 import com.prediction.backend.services.ChatService;
 import lombok.RequiredArgsConstructor;
@@ -31,4 +33,22 @@ public class ChatController {
                 response
         );
     }
+
+    /**
+     * Advances the sender's read watermark and tells the other participants,
+     * so badges and read marks update without reloading the history.
+     */
+    @MessageMapping("/chat.read")
+    public void markRead(@Payload ReadReceiptRequest request) {
+        ReadReceiptResponse receipt = chatService.markRead(request);
+
+        messagingTemplate.convertAndSend(
+                "/topic/conversations/" + request.getConversationId(),
+                ApiResponse.<ReadReceiptResponse>builder()
+                        .status(1000)
+                        .message("Read receipt")
+                        .data(receipt)
+                        .build()
+        );
+    }
 }
\ No newline at end of file
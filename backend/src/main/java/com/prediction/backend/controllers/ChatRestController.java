@@ -2,6 +2,9 @@ package com.prediction.backend.controllers;
 
 import com.prediction.backend.models.Conversation;
 import com.prediction.backend.dto.response.ApiResponse;
+import com.prediction.backend.dto.response.ChatHistoryPageResponse;
+import com.prediction.backend.dto.response.InboxItemResponse;
+import com.prediction.backend.dto.response.ReadReceiptResponse;
 import com.prediction.backend.models.ChatMessage;
 import com.prediction.backend.services.ChatService;
 import com.prediction.backend.dto.request.AddUserIntoConversationRequest;
@@ -43,6 +46,18 @@ public class ChatRestController {
                 .build());
     }
 
+    @GetMapping("/{conversationId}/messages")
+    public ResponseEntity<ApiResponse<ChatHistoryPageResponse>> getChatHistoryPage(
+            @PathVariable String conversationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "50") int limit) {
+        ChatHistoryPageResponse page = chatService.getChatHistoryPage(conversationId, before, limit);
+        return ResponseEntity.ok(ApiResponse.<ChatHistoryPageResponse>builder()
+                .message("Chat history fetched successfully")
+                .data(page)
+                .build());
+    }
+
     @GetMapping("/conversations")
     public ResponseEntity<ApiResponse<List<Conversation>>> getConversationsByUserId(@RequestParam String userId) {
         List<Conversation> conversations = chatService.getUserConversations(userId);
@@ -52,6 +67,30 @@ public class ChatRestController {
                 .build());
     }
 
+    @GetMapping("/inbox")
+    public ResponseEntity<ApiResponse<List<InboxItemResponse>>> getInbox(
+            @RequestParam String userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<InboxItemResponse> inbox = chatService.getInbox(userId, page, size);
+        return ResponseEntity.ok(ApiResponse.<List<InboxItemResponse>>builder()
+                .message("Inbox fetched")
+                .data(inbox)
+                .build());
+    }
+
+    @PostMapping("/conversation/{conversationId}/read")
+    public ApiResponse<ReadReceiptResponse> markConversationRead(
+            @PathVariable String conversationId,
+            @RequestParam String userId) {
+        ReadReceiptResponse receipt = chatService.markConversationRead(conversationId, userId);
+        return ApiResponse.<ReadReceiptResponse>builder()
+                .status(1000)
+                .message("Conversation marked as read")
+                .data(receipt)
+                .build();
+    }
+
     @GetMapping("/conversation/{id}")
     public ApiResponse<Conversation> getConversationById(@PathVariable String id) {
         Conversation conversation = chatService.getConversationById(id);
@@ -1,7 +1,10 @@
 package com.prediction.backend.controllers;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,7 +27,12 @@ import com.prediction.backend.repositories.NotificationRepository;
 import com.prediction.backend.repositories.PatientCaseRepository;
 import com.prediction.backend.repositories.SymptomRepository;
 import com.prediction.backend.repositories.UserRepository;
+import com.prediction.backend.services.CatalogCacheService;
+import com.prediction.backend.services.DiseaseIndexService;
 import com.prediction.backend.services.PatientCaseService;
+import com.prediction.backend.services.RuleMiningService;
+import com.prediction.backend.services.StatisticsRollupService;
+import com.prediction.backend.services.SymptomMatcherService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -53,6 +61,21 @@ public class DiagnoseController {
     @Autowired
     DiseaseSymptomRepository diseaseSymptomRe;
 
+    @Autowired
+    DiseaseIndexService diseaseIndexService;
+
+    @Autowired
+    SymptomMatcherService symptomMatcherService;
+
+    @Autowired
+    CatalogCacheService catalogCacheService;
+
+    @Autowired
+    StatisticsRollupService statisticsRollupService;
+
+    @Autowired
+    RuleMiningService ruleMiningService;
+
     @PostMapping("/diagnose")
     public ApiResponse<PatientCase> diagnose(@RequestBody DiagnosisRequest dr, @RequestParam String id_doctor) {
         // Gửi dữ liệu cho bác sĩ chuẩn đoán bệnh
@@ -68,11 +91,14 @@ public class DiagnoseController {
     public ApiResponse<PatientCase> diagnoseDisease(@RequestBody DiagnoseDiseaseRequest pRequest) {
         PatientCase log = patientCaseRepository.findById(pRequest.getId())
                 .orElseThrow(() -> new RuntimeException("Không tìm thấy log"));
+        PatientCase previousLog = statisticsRollupService.snapshot(log);
         log.setSymptoms(pRequest.getSymptoms());
         log.setRiskFactors(pRequest.getRiskFactors());
         log.setPredictedDisease(pRequest.getPredicted_disease());
         log.setStatus("");
         patientCaseRepository.save(log);
+        statisticsRollupService.recordCase(previousLog, log);
+        ruleMiningService.recordCase(previousLog, log);
 
         String diseasePrediction = pRequest.getPredicted_disease().trim();
         Disease disease = diseaseRe.findByNameVnIgnoreCase(diseasePrediction).stream().findFirst()
@@ -85,32 +111,51 @@ public class DiagnoseController {
             disease.setNameVn(diseasePrediction);
             disease.setNameEn(diseasePrediction); // Nếu không có nameEn
             diseaseRe.save(disease);
+            catalogCacheService.evictDisease(null, disease);
         }
 
         String diseaseId = disease.getDiseaseId();
 
         // 3. Duyệt từng triệu chứng
-        List<String> symptoms = pRequest.getSymptoms();
-        for (String symptomText : symptoms) {
-            String symptomName = symptomText.trim();
-
-            // Tìm symptom theo name hoặc synonym
-            List<Symptom> matched = symptomRe.findByNameOrSynonym(symptomName);
-            Symptom symptom = matched.isEmpty() ? null : matched.get(0);
+        List<String> symptoms = pRequest.getSymptoms().stream()
+                .map(String::trim)
+                .distinct()
+                .collect(Collectors.toList());
+        // Tìm symptom theo name hoặc synonym (một lần cho cả danh sách)
+        Map<String, List<String>> matchedIds = symptomMatcherService.resolveAll(symptoms);
+        Set<String> linkedIds = new HashSet<>();
+        boolean createdSymptom = false;
+        for (String symptomName : symptoms) {
+            List<String> matched = matchedIds.getOrDefault(symptomName, List.of());
+            if (matched.isEmpty() && createdSymptom) {
+                // Tên có thể trùng triệu chứng vừa tạo ở trên, chỉ khác hoa thường hoặc dấu
+                matched = symptomMatcherService.resolve(symptomName);
+            }
+            String symptomId = matched.isEmpty() ? null : matched.get(0);
 
-            if (symptom == null) {
+            if (symptomId == null) {
                 // Nếu chưa có, tạo mới
-                symptom = new Symptom();
+                Symptom symptom = new Symptom();
                 symptom.setSymptomId(Symptom.generateSymptomIdLimited20());
                 symptom.setNameVn(symptomName);
                 symptom.setNameEn(symptomName);
                 symptomRe.save(symptom);
+                symptomMatcherService.addSymptom(symptom);
+                catalogCacheService.evictSymptom(symptom);
+                symptomId = symptom.getSymptomId();
+                createdSymptom = true;
+            }
+            if (!linkedIds.add(symptomId)) {
+                continue;
             }
 
             // 4. Tạo liên kết disease - symptom
-            DiseaseSymptom ds = new DiseaseSymptom(diseaseId, symptom.getSymptomId(), 0);
+            DiseaseSymptom ds = new DiseaseSymptom(diseaseId, symptomId, 0);
             diseaseSymptomRe.save(ds);
+            diseaseIndexService.addDiseaseSymptom(diseaseId, symptomId, ds.getWeight());
         }
+        // Danh sách triệu chứng của bệnh đã thay đổi
+        catalogCacheService.evictDiseaseDetails(diseaseId);
         return ApiResponse.<PatientCase>builder()
                 .message("Completed update")
                 .build();
@@ -5,6 +5,8 @@ import com.prediction.backend.repositories.PatientCaseRepository;
 import com.prediction.backend.dto.request.UpdatePatientCaseRequest;
 import com.prediction.backend.dto.response.ApiResponse;
 import com.prediction.backend.dto.response.DiagnoseDiseaseResponse;
+import com.prediction.backend.services.RuleMiningService;
+import com.prediction.backend.services.StatisticsRollupService;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +20,12 @@ public class PatientCaseController {
         @Autowired
         private PatientCaseRepository patientCaseRepository;
 
+        @Autowired
+        private StatisticsRollupService statisticsRollupService;
+
+        @Autowired
+        private RuleMiningService ruleMiningService;
+
         // Lấy danh sách log theo id_notification
         @GetMapping("/by-notification/{notificationId}")
         public ApiResponse<DiagnoseDiseaseResponse> getLogsByNotification(@PathVariable String notificationId) {
@@ -44,6 +52,7 @@ public class PatientCaseController {
                         @RequestBody UpdatePatientCaseRequest updateRequest) {
                 PatientCase log = patientCaseRepository.findById(id)
                                 .orElseThrow(() -> new RuntimeException("Không tìm thấy log"));
+                PatientCase previousLog = statisticsRollupService.snapshot(log);
                 // Cập nhật các trường cần thiết, ví dụ:
                 log.setPredictedDisease(updateRequest.getPredictedDisease());
                 log.setSymptoms(updateRequest.getSymptoms());
@@ -52,6 +61,8 @@ public class PatientCaseController {
                 // ... các trường khác nếu cần
 
                 patientCaseRepository.save(log);
+                statisticsRollupService.recordCase(previousLog, log);
+                ruleMiningService.recordCase(previousLog, log);
                 return ApiResponse.<PatientCase>builder()
                                 .message("Cập nhật log thành công")
                                 .data(log)
@@ -2,6 +2,7 @@ package com.prediction.backend.controllers;
 
 import com.prediction.backend.dto.request.SearchingRequest;
 import com.prediction.backend.dto.response.ApiResponse;
+import com.prediction.backend.dto.response.RankedSearchingResponse;
 import com.prediction.backend.dto.response.SearchingResponse;
 import com.prediction.backend.models.Disease;
 import com.prediction.backend.services.SearchingService;
@@ -62,6 +63,29 @@ public class SearchingController {
                 .build();
     }
 
+    /**
+     * Ranks potential diseases by how much of their weighted symptom profile
+     * matches the symptom names provided by the user. Diseases matching only
+     * some of the symptoms are included.
+     *
+     * @param searchRequest the symptom names to search for
+     * @param topK          the maximum number of diseases to return
+     * @return ApiResponse containing the ranked diseases with their scores
+     */
+    @PostMapping("/search/ranked")
+    public ApiResponse<RankedSearchingResponse> searchRanked(
+            @Valid @RequestBody SearchingRequest searchRequest,
+            @RequestParam(defaultValue = "5") int topK) {
+
+        RankedSearchingResponse response = searchingService.searchRanked(searchRequest, topK);
+
+        return ApiResponse.<RankedSearchingResponse>builder()
+                .status(1000)
+                .message(response.getMessage())
+                .data(response)
+                .build();
+    }
+
     // @PostMapping("/diagnosis")
     // public ResponseEntity<ApiResponse<List<Disease>>> diagnose(
     // @RequestBody List<String> symptomNames,
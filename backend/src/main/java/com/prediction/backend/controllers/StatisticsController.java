@@ -1,11 +1,14 @@
 package com.prediction.backend.controllers;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.prediction.backend.dto.response.AgeGroupStatDTO;
@@ -15,6 +18,7 @@ import com.prediction.backend.dto.response.DiseaseBySeasonDTO;
 import com.prediction.backend.dto.response.GenderStatDTO;
 import com.prediction.backend.dto.response.WordCloudItemDTO;
 import com.prediction.backend.services.StatisticsService;
+import com.prediction.backend.validator.DateRangeValidator;
 
 @RestController
 @RequestMapping("/api/stats")
@@ -24,36 +28,47 @@ public class StatisticsController {
     private StatisticsService statisticsService;
 
     @GetMapping("/disease-by-season")
-    public ApiResponse<List<DiseaseBySeasonDTO>> getDiseaseBySeason() {
+    public ApiResponse<List<DiseaseBySeasonDTO>> getDiseaseBySeason(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        DateRangeValidator.check(from, to);
         return ApiResponse.<List<DiseaseBySeasonDTO>>builder()
                 .message("Thanh cong")
-                .data(statisticsService.getDiseaseBySeasonStats())
+                .data(statisticsService.getDiseaseBySeasonStats(from, to))
                 .build();
     }
 
     @GetMapping("/disease-by-location")
-    public ApiResponse<List<DiseaseByLocationDTO>> getDiseaseByLocation() {
+    public ApiResponse<List<DiseaseByLocationDTO>> getDiseaseByLocation(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        DateRangeValidator.check(from, to);
         return ApiResponse.<List<DiseaseByLocationDTO>>builder()
                 .message("Thanh cong")
-                .data(statisticsService.getDiseaseByLocationStats())
+                .data(statisticsService.getDiseaseByLocationStats(from, to))
                 .build();
     }
 
 
     @GetMapping("/gender")
-    public ApiResponse<List<GenderStatDTO>> getGenderStats() {
+    public ApiResponse<List<GenderStatDTO>> getGenderStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        DateRangeValidator.check(from, to);
         return ApiResponse.<List<GenderStatDTO>>builder()
                 .message("Thanh cong")
-                .data(statisticsService.getGenderStats())
+                .data(statisticsService.getGenderStats(from, to))
                 .build();
     }
 
     @GetMapping("/age-group")
-    public ApiResponse<List<AgeGroupStatDTO>> getAgeGroupStats() {
+    public ApiResponse<List<AgeGroupStatDTO>> getAgeGroupStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        DateRangeValidator.check(from, to);
         return ApiResponse.<List<AgeGroupStatDTO>>builder()
                 .message("Thanh cong")
-                .data(statisticsService.getAgeGroupStats())
+                .data(statisticsService.getAgeGroupStats(from, to))
                 .build();
     }
-
 }
@@ -1,9 +1,11 @@
 package com.prediction.backend.controllers;
 
+import com.prediction.backend.dto.SymptomSuggestionDTO;
 import com.prediction.backend.dto.response.ApiResponse;
 import com.prediction.backend.dto.response.SymptomResponse;
 import com.prediction.backend.models.Symptom;
 import com.prediction.backend.services.SymptomService;
+import com.prediction.backend.services.SymptomSuggestionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -21,6 +23,7 @@ import java.util.List;
 public class SymptomController {
 
         private final SymptomService symptomService;
+        private final SymptomSuggestionService symptomSuggestionService;
 
         /**
          * Retrieves a list of all symptoms.
@@ -167,4 +170,28 @@ public class SymptomController {
                                 .data(symptoms)
                                 .build();
         }
-}
\ No newline at end of file
+
+        /**
+         * Suggests symptoms related to the given ones from the association rules.
+         *
+         * @param symptoms the symptoms already reported
+         * @param topN     the maximum number of suggestions
+         * @param rankBy   "confidence" (default) or "lift"
+         * @return ApiResponse with the suggested symptoms, best first
+         */
+        @GetMapping("/symptoms/suggestions")
+        public ApiResponse<List<SymptomSuggestionDTO>> suggestSymptoms(
+                        @RequestParam("symptoms") List<String> symptoms,
+                        @RequestParam(defaultValue = "5") int topN,
+                        @RequestParam(defaultValue = "confidence") String rankBy) {
+                SymptomSuggestionService.Ranking ranking = "lift".equalsIgnoreCase(rankBy)
+                                ? SymptomSuggestionService.Ranking.LIFT
+                                : SymptomSuggestionService.Ranking.CONFIDENCE;
+                List<SymptomSuggestionDTO> suggestions = symptomSuggestionService.suggest(symptoms, topN, ranking);
+                return ApiResponse.<List<SymptomSuggestionDTO>>builder()
+                                .status(1000)
+                                .message("Found " + suggestions.size() + " suggested symptoms")
+                                .data(suggestions)
+                                .build();
+        }
+}
@@ -16,10 +16,56 @@ import java.util.ArrayList;
 public class ConversationDTO {
     private List<Map<String, Object>> contents = new ArrayList<>();
 
+    // Thông tin người dùng (tuổi, giới tính, bệnh nền), gửi một lần trong chỉ dẫn hệ thống
+    private String userDetail;
+
+    // Tóm tắt các lượt cũ đã bị đẩy ra khỏi cửa sổ hội thoại
+    private List<String> summarySymptoms = new ArrayList<>();
+    private List<String> summaryRiskFactors = new ArrayList<>();
+    private int summarizedTurns;
+
+    /**
+     * Returns a copy whose lists can be changed without affecting this one.
+     * The messages themselves are immutable maps and are shared.
+     */
+    public ConversationDTO copy() {
+        ConversationDTO copy = new ConversationDTO();
+        copy.contents = new ArrayList<>(contents);
+        copy.userDetail = userDetail;
+        copy.summarySymptoms = new ArrayList<>(summarySymptoms);
+        copy.summaryRiskFactors = new ArrayList<>(summaryRiskFactors);
+        copy.summarizedTurns = summarizedTurns;
+        return copy;
+    }
+
     public List<Map<String, Object>> getContents() {
         return contents;
     }
 
+    public String getUserDetail() {
+        return userDetail;
+    }
+
+    public void setUserDetail(String userDetail) {
+        this.userDetail = userDetail;
+    }
+
+    public List<String> getSummarySymptoms() {
+        return summarySymptoms;
+    }
+
+    public List<String> getSummaryRiskFactors() {
+        return summaryRiskFactors;
+    }
+
+    public int getSummarizedTurns() {
+        return summarizedTurns;
+    }
+
+    public void setSummarizedTurns(int summarizedTurns) {
+        this.summarizedTurns = summarizedTurns;
+    }
+
     // public void addSystemMessage(String text){
     // contents.add(Map.of(
     // "role", "system",
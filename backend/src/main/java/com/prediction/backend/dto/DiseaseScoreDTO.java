@@ -0,0 +1,17 @@
+package com.prediction.backend.dto;
+
+public class DiseaseScoreDTO {
+    private String diseaseId;
+    private double score;
+    private Long matchCount;
+
+    public DiseaseScoreDTO(String diseaseId, double score, Long matchCount) {
+        this.diseaseId = diseaseId;
+        this.score = score;
+        this.matchCount = matchCount;
+    }
+
+    public String getDiseaseId() { return diseaseId; }
+    public double getScore() { return score; }
+    public Long getMatchCount() { return matchCount; }
+}
@@ -0,0 +1,46 @@
+package com.prediction.backend.dto;
+
+import com.prediction.backend.models.Disease;
+
+/**
+ * Lightweight projection of a disease without the TEXT description columns.
+ */
+public class DiseaseSummaryDTO {
+    private String diseaseId;
+    private String originalId;
+    private String nameEn;
+    private String nameVn;
+    private Disease.Severity severity;
+    private String specialization;
+
+    public DiseaseSummaryDTO(String diseaseId, String originalId, String nameEn, String nameVn,
+            Disease.Severity severity, String specialization) {
+        this.diseaseId = diseaseId;
+        this.originalId = originalId;
+        this.nameEn = nameEn;
+        this.nameVn = nameVn;
+        this.severity = severity;
+        this.specialization = specialization;
+    }
+
+    public String getDiseaseId() { return diseaseId; }
+    public String getOriginalId() { return originalId; }
+    public String getNameEn() { return nameEn; }
+    public String getNameVn() { return nameVn; }
+    public Disease.Severity getSeverity() { return severity; }
+    public String getSpecialization() { return specialization; }
+
+    /**
+     * Creates a detached Disease holding only the summary fields.
+     */
+    public Disease toDisease() {
+        Disease disease = new Disease();
+        disease.setDiseaseId(diseaseId);
+        disease.setOriginalId(originalId);
+        disease.setNameEn(nameEn);
+        disease.setNameVn(nameVn);
+        disease.setSeverity(severity);
+        disease.setSpecialization(specialization);
+        return disease;
+    }
+}
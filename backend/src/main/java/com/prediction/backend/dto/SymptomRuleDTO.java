@@ -0,0 +1,23 @@
+package com.prediction.backend.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * An association rule between symptoms: patients with all the antecedent
+ * symptoms also have the consequent symptoms, with the given measures.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SymptomRuleDTO {
+    List<String> antecedents;
+    List<String> consequents;
+    double support;
+    double confidence;
+    double lift;
+}
@@ -0,0 +1,20 @@
+package com.prediction.backend.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A symptom suggested from the association rules, with the measures of the
+ * strongest rule that suggested it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SymptomSuggestionDTO {
+    String symptom;
+    double confidence;
+    double lift;
+    double support;
+}
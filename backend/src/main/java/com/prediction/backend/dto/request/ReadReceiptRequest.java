@@ -0,0 +1,18 @@
+package com.prediction.backend.dto.request;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReadReceiptRequest {
+    String conversationId;
+    String userId;
+    String messageId; // ID của tin nhắn cuối cùng đã đọc
+    Instant timestamp; // Thời gian gửi của tin nhắn đó
+}
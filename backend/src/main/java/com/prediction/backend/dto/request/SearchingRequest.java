@@ -13,4 +13,6 @@ import lombok.experimental.FieldDefaults;
 public class SearchingRequest {
     @NotEmpty(message = "SYMPTOMS_EMPTY")
     List<String> symptomNames;
+    // Chỉ trả về các trường tóm tắt của bệnh, bỏ qua phần mô tả (TEXT)
+    boolean summaryOnly;
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.prediction.backend.dto.response;
+
+import java.util.List;
+
+import com.prediction.backend.dto.DiseasePrediction;
+
+import lombok.Data;
+
+/**
+ * Response of the model service's /predict/batch endpoint. The results are in
+ * the order of the submitted items.
+ */
+@Data
+public class BatchPredictionResponse {
+    private List<Result> results;
+
+    @Data
+    public static class Result {
+        private List<DiseasePrediction> top_predictions;
+        // Lỗi của riêng dòng này (ví dụ không tiền xử lý được), null nếu thành công
+        private String error;
+    }
+}
@@ -0,0 +1,23 @@
+package com.prediction.backend.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A partial chatbot reply pushed to /topic/conversations/{id} while the reply
+ * is being generated. The persisted ChatMessage is pushed once it is complete.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BotReplyChunk {
+    String conversationId;
+    String senderId;
+    String sender;
+    // Phần văn bản mới nhận được
+    String delta;
+    // Số thứ tự của phần trong câu trả lời, bắt đầu từ 0
+    int sequence;
+}
@@ -0,0 +1,26 @@
+package com.prediction.backend.dto.response;
+
+import com.prediction.backend.models.ChatMessage;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * One page of a conversation's history. Messages are oldest first; pass
+ * nextCursor as 'before' to load the page of older messages.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ChatHistoryPageResponse {
+    List<ChatMessage> messages;
+    String nextCursor;
+    boolean hasMore;
+}
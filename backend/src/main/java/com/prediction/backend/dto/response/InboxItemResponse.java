@@ -0,0 +1,30 @@
+package com.prediction.backend.dto.response;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One conversation in a user's inbox, with the preview of its last message
+ * and the number of messages the user has not read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class InboxItemResponse {
+    String conversationId;
+    String title;
+    List<String> participantIds;
+    Instant lastMessageTime;
+    String lastMessagePreview;
+    String lastMessageSenderId;
+    int unreadCount;
+}
@@ -8,6 +8,9 @@ import java.util.List;
 @Data
 public class PredictionResponse {
     private List<DiseasePrediction> top_predictions;
+    // Triệu chứng / yếu tố nguy cơ không có trong từ điển của mô hình nên không được dùng khi dự đoán
+    private List<String> unknown_symptoms;
+    private List<String> unknown_risk_factors;
     // private int requested_top_k;
     // private int total_classes;
     // private String message;
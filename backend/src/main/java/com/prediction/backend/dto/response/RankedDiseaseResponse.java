@@ -0,0 +1,20 @@
+package com.prediction.backend.dto.response;
+
+import com.prediction.backend.models.Disease;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.AccessLevel;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RankedDiseaseResponse {
+    Disease disease;
+    double score;
+    long matchedSymptomCount;
+}
@@ -0,0 +1,23 @@
+package com.prediction.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.AccessLevel;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RankedSearchingResponse {
+    List<RankedDiseaseResponse> diseases;
+    int matchedSymptomCount;
+    @JsonIgnore
+    String message;
+}
@@ -0,0 +1,27 @@
+package com.prediction.backend.dto.response;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.time.Instant;
+
+/**
+ * A participant's read watermark after it was advanced, with the number of
+ * messages still unread by that participant.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReadReceiptResponse {
+    String conversationId;
+    String userId;
+    String messageId;
+    Instant readUpTo;
+    int unreadCount;
+}
@@ -59,7 +59,11 @@ public enum ErrorCode {
     JWT_UNEXPECTED_ERROR(5007, "Unexpected error during JWT processing", HttpStatus.INTERNAL_SERVER_ERROR),
 
     CONVERSATION_NOT_FOUND(6000, "Conversation not found", HttpStatus.NOT_FOUND),
-    USER_NOT_IN_CONVERSATION(6001, "User not in conversation", HttpStatus.NOT_FOUND);
+    USER_NOT_IN_CONVERSATION(6001, "User not in conversation", HttpStatus.NOT_FOUND),
+    INVALID_HISTORY_CURSOR(6002, "Invalid chat history cursor", HttpStatus.BAD_REQUEST),
+    CHAT_QUEUE_FULL(6003, "Chat is busy, please try again", HttpStatus.SERVICE_UNAVAILABLE),
+
+    INVALID_DATE_RANGE(7001, "Ngày bắt đầu phải trước hoặc bằng ngày kết thúc", HttpStatus.BAD_REQUEST);
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
         this.code = code;
@@ -23,6 +23,6 @@ public class ChatMessage {
 
     // Thông tin phụ
     private String sender; // Loại người gửi: "user", "doctor", "system"
-    private boolean isRead; // Đã đọc chưa
+    private boolean isRead; // Không còn được cập nhật, trạng thái đọc nằm ở Conversation.readWatermarks
 
 }
\ No newline at end of file
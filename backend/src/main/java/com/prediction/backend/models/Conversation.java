@@ -8,6 +8,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @Document(collection = "conversations")
 @Data
@@ -20,4 +21,11 @@ public class Conversation {
     private Instant startTime;
     private Instant lastMessageTime;
     private List<String> participantIds;
+
+    // Dữ liệu cho hộp thư (inbox), được cập nhật mỗi khi có tin nhắn mới
+    private String lastMessageId;
+    private String lastMessagePreview;
+    private String lastMessageSenderId;
+    private Map<String, Integer> unreadCounts; // Số tin chưa đọc theo từng participant
+    private Map<String, ReadWatermark> readWatermarks; // Tin nhắn cuối đã đọc theo từng participant
 }
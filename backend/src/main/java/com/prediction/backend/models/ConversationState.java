@@ -0,0 +1,49 @@
+package com.prediction.backend.models;
+
+import com.prediction.backend.dto.ConversationDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-progress chatbot state of one conversation: the prompt history sent to
+ * the chatbot and the data collected so far. The state is dropped once the
+ * bot has reached a conclusion.
+ */
+@Document(collection = "conversation_states")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationState {
+    @Id
+    private String conversationId;
+    private ConversationDTO conversation = new ConversationDTO();
+    private List<String> collectedData = new ArrayList<>();
+    private Instant lastAccess;
+
+    // Đánh dấu cuộc hội thoại với bot đã kết thúc, trạng thái sẽ bị xoá thay vì lưu
+    @Transient
+    private boolean ended;
+
+    public ConversationState(String conversationId) {
+        this.conversationId = conversationId;
+        this.lastAccess = Instant.now();
+    }
+
+    /**
+     * Returns a copy whose conversation and collected data can be changed
+     * without affecting this state.
+     */
+    public ConversationState copy() {
+        return new ConversationState(conversationId, conversation.copy(), new ArrayList<>(collectedData), lastAccess,
+                ended);
+    }
+}
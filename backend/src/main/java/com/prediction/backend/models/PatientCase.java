@@ -13,7 +13,10 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
-@Table(name = "chat_logs")
+@Table(name = "chat_logs", indexes = {
+        @Index(name = "idx_chat_logs_created_at", columnList = "created_at"),
+        @Index(name = "idx_chat_logs_symptom_start_time", columnList = "symptom_start_time")
+})
 public class PatientCase {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,20 @@
+package com.prediction.backend.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * The last message a participant has read in a conversation. Every message up
+ * to (timestamp, messageId) counts as read, so reading never updates the
+ * messages themselves.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadWatermark {
+    private String messageId;
+    private Instant timestamp;
+}
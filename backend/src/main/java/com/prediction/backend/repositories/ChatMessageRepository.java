@@ -7,7 +7,9 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ChatMessageRepository extends MongoRepository<ChatMessage, String> {
+public interface ChatMessageRepository extends MongoRepository<ChatMessage, String>, ChatMessageRepositoryCustom {
     List<ChatMessage> findByConversationIdOrderByTimestampAsc(String conversationId);
-}
 
+    // Xoá phía server (deleteMany), không tải các message về
+    long deleteByConversationId(String conversationId);
+}
@@ -0,0 +1,47 @@
+package com.prediction.backend.repositories;
+
+import com.prediction.backend.models.ChatMessage;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Queries on 'chat_messages' that cannot be expressed as derived queries.
+ */
+public interface ChatMessageRepositoryCustom {
+
+    /**
+     * Creates the compound index (conversationId, timestamp, _id) that backs
+     * the history queries, if it does not exist yet.
+     */
+    void ensureIndexes();
+
+    /**
+     * Finds the messages of a conversation that come before a position, newest
+     * first. Messages are ordered by (timestamp, id), so the position is exact
+     * even when several messages share a timestamp.
+     *
+     * @param conversationId the ID of the conversation
+     * @param beforeTime     the timestamp of the position, or null to start
+     *                       from the latest message
+     * @param beforeId       the ID of the message at the position
+     * @param limit          the maximum number of messages
+     * @return the messages, newest first
+     */
+    List<ChatMessage> findBefore(String conversationId, Instant beforeTime, String beforeId, int limit);
+
+    /**
+     * Counts the messages of a conversation that come after a position, up to
+     * a timestamp, and were not sent by the given user.
+     *
+     * @param conversationId  the ID of the conversation
+     * @param afterTime       the timestamp of the position
+     * @param afterId         the ID of the message at the position, or null
+     * @param upToTime        the timestamp of the last message to count, or
+     *                        null to count up to the latest message
+     * @param excludeSenderId the user whose own messages are not counted
+     * @return the number of messages
+     */
+    long countAfter(String conversationId, Instant afterTime, String afterId, Instant upToTime,
+            String excludeSenderId);
+}
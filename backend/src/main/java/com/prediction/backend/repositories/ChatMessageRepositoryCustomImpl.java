@@ -0,0 +1,65 @@
+package com.prediction.backend.repositories;
+
+import com.prediction.backend.models.ChatMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Keyset (cursor) queries over 'chat_messages'. A page is read by seeking the
+ * compound index to the position and walking it backwards, so the cost of a
+ * page does not depend on how far back in the conversation it is.
+ */
+@RequiredArgsConstructor
+public class ChatMessageRepositoryCustomImpl implements ChatMessageRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(ChatMessage.class).ensureIndex(new Index()
+                .on("conversationId", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("conversation_timestamp_id"));
+    }
+
+    @Override
+    public List<ChatMessage> findBefore(String conversationId, Instant beforeTime, String beforeId, int limit) {
+        Criteria criteria = Criteria.where("conversationId").is(conversationId);
+        if (beforeTime != null) {
+            // (timestamp, _id) < (beforeTime, beforeId)
+            criteria = criteria.orOperator(
+                    Criteria.where("timestamp").lt(beforeTime),
+                    Criteria.where("timestamp").is(beforeTime).and("_id").lt(beforeId));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, ChatMessage.class);
+    }
+
+    @Override
+    public long countAfter(String conversationId, Instant afterTime, String afterId, Instant upToTime,
+            String excludeSenderId) {
+        Criteria after = afterId == null
+                ? Criteria.where("timestamp").gt(afterTime)
+                : new Criteria().orOperator(
+                        Criteria.where("timestamp").gt(afterTime),
+                        Criteria.where("timestamp").is(afterTime).and("_id").gt(afterId));
+        Criteria criteria = new Criteria().andOperator(
+                Criteria.where("conversationId").is(conversationId),
+                Criteria.where("senderId").ne(excludeSenderId),
+                after);
+        if (upToTime != null) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where("timestamp").lte(upToTime));
+        }
+        return mongoTemplate.count(Query.query(criteria), ChatMessage.class);
+    }
+}
@@ -9,7 +9,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ConversationRepository extends MongoRepository<Conversation, String> {
+public interface ConversationRepository extends MongoRepository<Conversation, String>, ConversationRepositoryCustom {
 
     // Tìm conversation có đúng 2 participantIds (không phân biệt thứ tự)
     @Query("{ 'participantIds': { $all: ?0 }, '$expr': { '$eq': [{ '$size': '$participantIds' }, ?1] } }")
@@ -17,4 +17,4 @@ public interface ConversationRepository extends MongoRepository<Conversation, St
 
     // Tìm tất cả conversation mà participantIds chứa userId
     List<Conversation> findByParticipantIdsContaining(String userId);
-}
\ No newline at end of file
+}
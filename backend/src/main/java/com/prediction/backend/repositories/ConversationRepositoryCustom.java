@@ -0,0 +1,98 @@
+package com.prediction.backend.repositories;
+
+import com.prediction.backend.models.Conversation;
+import com.prediction.backend.models.ReadWatermark;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Queries on 'conversations' that cannot be expressed as derived queries.
+ */
+public interface ConversationRepositoryCustom {
+
+    /**
+     * Creates the multikey index (participantIds, lastMessageTime) that backs
+     * the inbox query, if it does not exist yet.
+     */
+    void ensureIndexes();
+
+    /**
+     * Finds one page of a user's conversations, most recent message first.
+     * Only the user's own entry of unreadCounts is loaded.
+     *
+     * @param userId   the ID of the participant
+     * @param pageable the page to load; its sort is ignored
+     * @return the conversations of the page
+     */
+    List<Conversation> findInbox(String userId, Pageable pageable);
+
+    /**
+     * Moves a participant's read watermark forward. A watermark at or after
+     * the given one is left as it is, so receipts arriving out of order never
+     * move it back.
+     *
+     * @param conversationId the ID of the conversation
+     * @param userId         the ID of the participant
+     * @param watermark      the new watermark
+     * @return true if the watermark was moved
+     */
+    boolean advanceReadWatermark(String conversationId, String userId, ReadWatermark watermark);
+
+    /**
+     * Moves a participant's read watermark forward and clears their unread
+     * count in the same update, provided the watermark is at or after the
+     * conversation's lastMessageTime. The message writer moves lastMessageTime
+     * in the same update as it increments the unread counts, so every message
+     * counted so far is then covered by the watermark.
+     *
+     * @param conversationId the ID of the conversation
+     * @param userId         the ID of the participant
+     * @param watermark      the new watermark
+     * @return true if the watermark was moved and the count cleared
+     */
+    boolean markAllRead(String conversationId, String userId, ReadWatermark watermark);
+
+    /**
+     * Sets a participant's unread count of a conversation, provided the
+     * conversation's lastMessageTime is still the one the count was made up
+     * to; otherwise the message writer has incremented the counts since.
+     *
+     * @param conversationId  the ID of the conversation
+     * @param userId          the ID of the participant
+     * @param unreadCount     the number of unread messages
+     * @param lastMessageTime the lastMessageTime the count was made up to
+     * @return false if lastMessageTime has changed and nothing was written
+     */
+    boolean setUnreadCount(String conversationId, String userId, long unreadCount, Instant lastMessageTime);
+
+    /**
+     * Adds a participant with $addToSet, leaving the rest of the conversation,
+     * e.g. the inbox fields kept up to date by the message writer, untouched.
+     *
+     * @param conversationId the ID of the conversation
+     * @param userId         the ID of the participant
+     * @return false if the conversation does not exist
+     */
+    boolean addParticipant(String conversationId, String userId);
+
+    /**
+     * Removes a participant with $pull.
+     *
+     * @param conversationId the ID of the conversation
+     * @param userId         the ID of the participant
+     * @return false if the conversation does not exist or the user is not one
+     *         of its participants
+     */
+    boolean removeParticipant(String conversationId, String userId);
+
+    /**
+     * Sets the title of a conversation.
+     *
+     * @param conversationId the ID of the conversation
+     * @param title          the new title
+     * @return the updated conversation, or null if it does not exist
+     */
+    Conversation updateTitle(String conversationId, String title);
+}
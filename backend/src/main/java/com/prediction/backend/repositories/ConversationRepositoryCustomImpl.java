@@ -0,0 +1,113 @@
+package com.prediction.backend.repositories;
+
+import com.prediction.backend.models.Conversation;
+import com.prediction.backend.models.ReadWatermark;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Inbox queries over 'conversations'. The inbox reads the last message
+ * preview and unread counts denormalised onto each conversation, so one
+ * indexed query returns a sorted page of the sidebar. Since the message
+ * writer updates those fields concurrently, other changes to a conversation
+ * are targeted updates too rather than full-document saves.
+ */
+@RequiredArgsConstructor
+public class ConversationRepositoryCustomImpl implements ConversationRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(Conversation.class).ensureIndex(new Index()
+                .on("participantIds", Sort.Direction.ASC)
+                .on("lastMessageTime", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("participant_last_message"));
+    }
+
+    @Override
+    public List<Conversation> findInbox(String userId, Pageable pageable) {
+        Query query = Query.query(Criteria.where("participantIds").is(userId))
+                .with(Sort.by(Sort.Direction.DESC, "lastMessageTime", "_id"))
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize());
+        query.fields()
+                .include("title", "startTime", "lastMessageTime", "participantIds",
+                        "lastMessagePreview", "lastMessageSenderId")
+                .include("unreadCounts." + userId);
+        return mongoTemplate.find(query, Conversation.class);
+    }
+
+    @Override
+    public boolean advanceReadWatermark(String conversationId, String userId, ReadWatermark watermark) {
+        Query query = Query.query(new Criteria().andOperator(Criteria.where("_id").is(conversationId),
+                watermarkBefore(userId, watermark)));
+        return mongoTemplate.updateFirst(query, new Update().set("readWatermarks." + userId, watermark),
+                Conversation.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean markAllRead(String conversationId, String userId, ReadWatermark watermark) {
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("_id").is(conversationId),
+                watermarkBefore(userId, watermark),
+                new Criteria().orOperator(
+                        Criteria.where("lastMessageTime").exists(false),
+                        Criteria.where("lastMessageTime").lte(watermark.getTimestamp()))));
+        Update update = new Update()
+                .set("readWatermarks." + userId, watermark)
+                .unset("unreadCounts." + userId);
+        return mongoTemplate.updateFirst(query, update, Conversation.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean setUnreadCount(String conversationId, String userId, long unreadCount, Instant lastMessageTime) {
+        Update update = unreadCount > 0
+                ? new Update().set("unreadCounts." + userId, unreadCount)
+                : new Update().unset("unreadCounts." + userId);
+        Query query = Query.query(Criteria.where("_id").is(conversationId).and("lastMessageTime").is(lastMessageTime));
+        return mongoTemplate.updateFirst(query, update, Conversation.class).getMatchedCount() > 0;
+    }
+
+    // Watermark hiện tại (nếu có) đứng trước watermark mới theo (timestamp, messageId)
+    private static Criteria watermarkBefore(String userId, ReadWatermark watermark) {
+        String field = "readWatermarks." + userId;
+        return new Criteria().orOperator(
+                Criteria.where(field).exists(false),
+                Criteria.where(field + ".timestamp").lt(watermark.getTimestamp()),
+                Criteria.where(field + ".timestamp").is(watermark.getTimestamp())
+                        .and(field + ".messageId").lt(watermark.getMessageId()));
+    }
+
+    @Override
+    public boolean addParticipant(String conversationId, String userId) {
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(conversationId)),
+                new Update().addToSet("participantIds", userId), Conversation.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean removeParticipant(String conversationId, String userId) {
+        Query query = Query.query(Criteria.where("_id").is(conversationId).and("participantIds").is(userId));
+        return mongoTemplate.updateFirst(query, new Update().pull("participantIds", userId), Conversation.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public Conversation updateTitle(String conversationId, String title) {
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(conversationId)),
+                new Update().set("title", title), FindAndModifyOptions.options().returnNew(true),
+                Conversation.class);
+    }
+}
@@ -0,0 +1,9 @@
+package com.prediction.backend.repositories;
+
+import com.prediction.backend.models.ConversationState;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ConversationStateRepository extends MongoRepository<ConversationState, String> {
+}
@@ -1,5 +1,6 @@
 package com.prediction.backend.repositories;
 
+import com.prediction.backend.dto.DiseaseSummaryDTO;
 import com.prediction.backend.models.Disease;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -72,4 +74,15 @@ public interface DiseaseRepository extends JpaRepository<Disease, String> {
      */
     Page<Disease> findByNameEnContainingIgnoreCaseOrNameVnContainingIgnoreCase(String nameEn, String nameVn, Pageable pageable);
 
+    /**
+     * Retrieves the summary fields of several diseases in a single query,
+     * without loading the TEXT description columns.
+     *
+     * @param diseaseIds the unique identifiers of the diseases
+     * @return a list of disease summaries, in no particular order
+     */
+    @Query("SELECT new com.prediction.backend.dto.DiseaseSummaryDTO(d.diseaseId, d.originalId, d.nameEn, d.nameVn, d.severity, d.specialization) "
+            + "FROM Disease d WHERE d.diseaseId IN :diseaseIds")
+    List<DiseaseSummaryDTO> findSummariesByDiseaseIdIn(@Param("diseaseIds") Collection<String> diseaseIds);
+
 }
\ No newline at end of file
@@ -1,15 +1,45 @@
 package com.prediction.backend.repositories;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.prediction.backend.models.PatientCase;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface PatientCaseRepository extends JpaRepository<PatientCase, Long> {
     List<PatientCase> findAll();
 
    PatientCase findByNotification_Id(String notificationId);
+
+    /**
+     * Streams the columns used by the charts (predicted disease, location, age,
+     * season) of every case with a forward-only cursor.
+     * A fetch size of Integer.MIN_VALUE makes the MySQL driver stream rows one
+     * by one instead of buffering the whole result. Must be consumed inside a
+     * transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT p.predictedDisease, p.location, p.age, p.season FROM PatientCase p")
+    Stream<Object[]> streamChartColumns();
+
+    /**
+     * Same as {@link #streamChartColumns()}, restricted to cases dated in
+     * [from, to). A case is dated by created_at, or by symptom_start_time when
+     * created_at is missing; both columns are indexed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT p.predictedDisease, p.location, p.age, p.season FROM PatientCase p "
+            + "WHERE (p.createdAt >= :from AND p.createdAt < :to) "
+            + "OR (p.createdAt IS NULL AND p.symptomStartTime >= :from AND p.symptomStartTime < :to)")
+    Stream<Object[]> streamChartColumnsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,37 @@
+package com.prediction.backend.services;
+
+import com.prediction.backend.models.Disease;
+import com.prediction.backend.models.Symptom;
+
+/**
+ * Service interface for invalidating the cached disease and symptom catalogs.
+ * Only the entries affected by a write are evicted, the rest of the cache is
+ * left untouched.
+ */
+public interface CatalogCacheService {
+
+    /**
+     * Evicts the entries of a disease that was created, updated or deleted:
+     * the disease itself, its details, the full list and every filtered list
+     * it belonged to before or belongs to after the write.
+     *
+     * @param previous the state before the write, or null if it was created
+     * @param current  the state after the write, or null if it was deleted
+     */
+    void evictDisease(Disease previous, Disease current);
+
+    /**
+     * Evicts the details of a disease whose symptoms have changed.
+     *
+     * @param diseaseId the ID of the disease
+     */
+    void evictDiseaseDetails(String diseaseId);
+
+    /**
+     * Evicts the entries of a symptom that was created or updated: the symptom
+     * itself, the full list and the filtered lists it belongs to.
+     *
+     * @param symptom the symptom that was written
+     */
+    void evictSymptom(Symptom symptom);
+}
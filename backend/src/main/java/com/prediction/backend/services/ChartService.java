@@ -1,8 +1,13 @@
 package com.prediction.backend.services;
 
+import java.time.LocalDate;
 import java.util.Map;
 
 public interface ChartService {
-    public Map<String, Object> getChartData();
+    /**
+     * Builds the chart histograms over the cases dated in [from, to].
+     * Either date may be null to leave that side of the window open.
+     */
+    public Map<String, Object> getChartData(LocalDate from, LocalDate to);
 
 }
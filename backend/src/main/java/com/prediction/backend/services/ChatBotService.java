@@ -3,8 +3,18 @@ package com.prediction.backend.services;
 
 import com.prediction.backend.dto.ConversationDTO;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface ChatBotService {
     Mono<String> ask(String userMessage, ConversationDTO conversation, String conversationId);
+
+    /**
+     * Same as {@link #ask}, but streams the reply from Gemini chunk by chunk as
+     * it is generated. The assembled reply is added to the conversation once
+     * the stream completes.
+     *
+     * @return the text chunks of the reply, in order
+     */
+    Flux<String> askStream(String userMessage, ConversationDTO conversation, String conversationId);
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.prediction.backend.services;
+
+import com.prediction.backend.dto.ConversationDTO;
+
+import java.util.Map;
+
+/**
+ * Service interface for managing the prompt context sent to the chatbot.
+ * The system instruction is sent once per request through the API's
+ * systemInstruction field instead of being stored in the history, only a
+ * bounded window of recent turns is kept, and older turns are rolled into a
+ * compact summary of the symptoms and risk factors they mention.
+ */
+public interface ChatContextService {
+
+    /**
+     * Compacts the conversation to the configured window and token budget, then
+     * builds the Gemini request body for it.
+     *
+     * @param conversation the conversation, whose last content is the new user
+     *                     message
+     * @return the request body with systemInstruction and contents
+     */
+    Map<String, Object> buildRequest(ConversationDTO conversation);
+}
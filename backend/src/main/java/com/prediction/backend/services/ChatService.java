@@ -1,13 +1,18 @@
 package com.prediction.backend.services;
 
+import com.prediction.backend.dto.request.ReadReceiptRequest;
 import com.prediction.backend.dto.request.UpdateConversationRequest;
 import com.prediction.backend.dto.response.BotResponseDetail;
+import com.prediction.backend.dto.response.ChatHistoryPageResponse;
+import com.prediction.backend.dto.response.InboxItemResponse;
+import com.prediction.backend.dto.response.ReadReceiptResponse;
 import com.prediction.backend.models.ChatMessage;
 import com.prediction.backend.models.Conversation;
 
 import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ChatService {
     /**
@@ -35,6 +40,18 @@ public interface ChatService {
      */
     List<ChatMessage> getChatHistory(String conversationId);
 
+    /**
+     * Get one page of chat history, scrolling back from the latest message
+     * 
+     * @param conversationId ID of the conversation
+     * @param before         cursor returned with the previous page, or null for
+     *                       the latest messages
+     * @param limit          maximum number of messages in the page
+     * @return the page, oldest message first, with the cursor of the next
+     *         (older) page
+     */
+    ChatHistoryPageResponse getChatHistoryPage(String conversationId, String before, int limit);
+
     /**
      * Get all conversations for a user
      * 
@@ -43,6 +60,37 @@ public interface ChatService {
      */
     List<Conversation> getUserConversations(String userId);
 
+    /**
+     * Get one page of a user's inbox
+     * 
+     * @param userId ID of the user
+     * @param page   zero-based page number
+     * @param size   number of conversations per page
+     * @return conversations sorted by last message time, newest first, with
+     *         the last message preview and the user's unread count
+     */
+    List<InboxItemResponse> getInbox(String userId, int page, int size);
+
+    /**
+     * Advance a participant's read watermark to the given message. Reading up
+     * to the latest message clears the unread count in the same update;
+     * otherwise the messages still unread are recounted. A receipt older than
+     * the current watermark leaves it unchanged.
+     * 
+     * @param request the conversation, the reader and the last message read
+     * @return the watermark and unread count after the receipt
+     */
+    ReadReceiptResponse markRead(ReadReceiptRequest request);
+
+    /**
+     * Mark every message of a conversation as read by a user
+     * 
+     * @param conversationId ID of the conversation
+     * @param userId         ID of the user
+     * @return the watermark and unread count after the receipt
+     */
+    ReadReceiptResponse markConversationRead(String conversationId, String userId);
+
     Conversation getConversationById(String conversationId);
 
     void addUserToConversation(String conversationId, String userId);
@@ -51,9 +99,29 @@ public interface ChatService {
 
     void removeUserFromConversation(String conversationId, String userId);
 
-    BotResponseDetail handleData(String userMessage, String conversationId, int age, String gender,
+    /**
+     * Handles a user message sent to the chatbot as a non-blocking pipeline:
+     * chatbot reply, local disease search, then the prediction model. Each stage
+     * has its own timeout, and cancelling the subscription cancels the pending
+     * upstream calls.
+     *
+     * @return the bot reply; errors and timeouts are turned into an error reply
+     */
+    Mono<BotResponseDetail> handleData(String userMessage, String conversationId, int age, String gender,
             String underlying_disease);
 
+    /**
+     * Same as {@link #handleData}, but streams the chatbot reply. Each text
+     * chunk is passed to onPartialReply as soon as it arrives, until the
+     * structured JSON block starts; the rest of the pipeline runs on the
+     * assembled reply.
+     *
+     * @param onPartialReply receives the text chunks meant for the user
+     * @return the final bot reply
+     */
+    Mono<BotResponseDetail> handleDataStreaming(String userMessage, String conversationId, int age, String gender,
+            String underlying_disease, Consumer<String> onPartialReply);
+
     void reset(String conversationId);
 
     void deleteConversation(String conversationId);
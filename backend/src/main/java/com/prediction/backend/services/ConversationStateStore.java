@@ -0,0 +1,36 @@
+package com.prediction.backend.services;
+
+import com.prediction.backend.models.ConversationState;
+
+/**
+ * Store for the in-progress chatbot state of each conversation.
+ * The implementation is chosen with the chat.state.store property: "memory"
+ * (default) keeps the state in a bounded in-process cache, "mongo" keeps it in
+ * the 'conversation_states' collection so it survives restarts and is shared
+ * by every backend instance. Both drop state that has been idle for longer
+ * than chat.state.idle-ttl.
+ */
+public interface ConversationStateStore {
+
+    /**
+     * Loads the state of a conversation.
+     *
+     * @param conversationId the ID of the conversation
+     * @return the stored state, or a new empty state if there is none
+     */
+    ConversationState load(String conversationId);
+
+    /**
+     * Stores the state of a conversation, refreshing its idle timer.
+     *
+     * @param state the state to store
+     */
+    void save(ConversationState state);
+
+    /**
+     * Removes the state of a conversation.
+     *
+     * @param conversationId the ID of the conversation
+     */
+    void remove(String conversationId);
+}
@@ -0,0 +1,65 @@
+package com.prediction.backend.services;
+
+import com.prediction.backend.dto.DiseaseScoreDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Service interface for the in-memory symptom to disease index.
+ * The index is built once from the 'disease_symptom' table and kept up to date
+ * incrementally, so symptom searches do not have to hit the database.
+ */
+public interface DiseaseIndexService {
+
+    /**
+     * Checks whether the index has been loaded and can serve queries.
+     *
+     * @return true if the index is ready, false otherwise
+     */
+    boolean isReady();
+
+    /**
+     * Rebuilds the whole index from the 'disease_symptom' table.
+     */
+    void rebuild();
+
+    /**
+     * Finds the IDs of all diseases that are associated with every given symptom.
+     *
+     * @param symptomIds the symptom IDs to match
+     * @return a list of disease IDs containing all the symptoms.
+     *         Returns an empty list if no disease matches.
+     */
+    List<String> findDiseasesWithAllSymptoms(Collection<String> symptomIds);
+
+    /**
+     * Ranks diseases by how well they match the given symptoms, even when only
+     * some of the symptoms match.
+     * The score of a disease is the summed weight of its matched symptoms divided
+     * by the total weight of all its symptoms, so it lies between 0 and 1.
+     *
+     * @param symptomIds the symptom IDs to match
+     * @param topK       the maximum number of diseases to return
+     * @return up to topK diseases with their scores, best match first.
+     *         Returns an empty list if no disease matches any symptom.
+     */
+    List<DiseaseScoreDTO> rankDiseases(Collection<String> symptomIds, int topK);
+
+    /**
+     * Adds a disease-symptom association to the index, or replaces its weight if
+     * the association is already indexed.
+     *
+     * @param diseaseId the ID of the disease
+     * @param symptomId the ID of the symptom
+     * @param weight    the weight of the association, may be null
+     */
+    void addDiseaseSymptom(String diseaseId, String symptomId, Integer weight);
+
+    /**
+     * Removes a disease and all its associations from the index.
+     *
+     * @param diseaseId the ID of the disease to remove
+     */
+    void removeDisease(String diseaseId);
+}
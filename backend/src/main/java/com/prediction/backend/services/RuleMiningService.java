@@ -0,0 +1,46 @@
+package com.prediction.backend.services;
+
+import com.prediction.backend.models.PatientCase;
+
+/**
+ * Service interface for mining symptom association rules from the patient
+ * cases in the 'chat_logs' table. The symptom and symptom-pair counts of the
+ * diagnosed cases are built once and updated incrementally whenever a case is
+ * written, and the rules derived from them are published to the
+ * {@link SymptomSuggestionService} on a schedule, so the table is never
+ * rescanned to refresh the rules.
+ */
+public interface RuleMiningService {
+
+    /**
+     * Checks whether the counts have been loaded.
+     *
+     * @return true if the counts are ready, false otherwise
+     */
+    boolean isReady();
+
+    /**
+     * Rebuilds the counts from the 'chat_logs' table.
+     */
+    void rebuild();
+
+    /**
+     * Records a written case: the symptoms of its previous state are removed
+     * from the counts and the symptoms of its current state are added. Only
+     * cases with a diagnosed disease are counted.
+     *
+     * @param previous the state before the write (see
+     *                 {@link StatisticsRollupService#snapshot}), or null if the
+     *                 case was created
+     * @param current  the state after the write
+     */
+    void recordCase(PatientCase previous, PatientCase current);
+
+    /**
+     * Derives the rules from the current counts and publishes them to the
+     * {@link SymptomSuggestionService}.
+     *
+     * @return the number of rules published
+     */
+    int publish();
+}
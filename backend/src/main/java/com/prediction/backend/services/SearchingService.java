@@ -1,6 +1,7 @@
 package com.prediction.backend.services;
 
 import com.prediction.backend.dto.request.SearchingRequest;
+import com.prediction.backend.dto.response.RankedSearchingResponse;
 import com.prediction.backend.dto.response.SearchingResponse;
 import com.prediction.backend.exceptions.AppException;
 
@@ -12,4 +13,14 @@ public interface SearchingService {
       * @return A Diagnosis object containing the diagnosis result.
       */
      SearchingResponse search(SearchingRequest searchingRequest) throws AppException;
-}
\ No newline at end of file
+
+     /**
+      * Ranks diseases by the weighted share of their symptoms matched by the
+      * provided symptom names, allowing partial matches.
+      *
+      * @param searchingRequest A list of symptom names.
+      * @param topK             The maximum number of diseases to return.
+      * @return A RankedSearchingResponse with the top diseases and their scores.
+      */
+     RankedSearchingResponse searchRanked(SearchingRequest searchingRequest, int topK) throws AppException;
+}
@@ -0,0 +1,85 @@
+package com.prediction.backend.services;
+
+import com.prediction.backend.models.PatientCase;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Service interface for the pre-aggregated patient case statistics.
+ * Counters are built once from the 'chat_logs' table and updated incrementally
+ * whenever a case is written, so the statistics endpoints do not have to load
+ * every case. Counters are also kept per day, so a date window costs the same
+ * whatever the size of the table.
+ *
+ * The from and to dates of the getters are inclusive; either may be null to
+ * leave that side of the window open.
+ */
+public interface StatisticsRollupService {
+
+    /**
+     * Checks whether the counters have been loaded and can serve queries.
+     *
+     * @return true if the counters are ready, false otherwise
+     */
+    boolean isReady();
+
+    /**
+     * Rebuilds all counters from the 'chat_logs' table.
+     */
+    void rebuild();
+
+    /**
+     * Records a written case: the contribution of its previous state is removed
+     * and the contribution of its current state is added.
+     *
+     * @param previous the state before the write (see {@link #snapshot}), or
+     *                 null if the case was created
+     * @param current  the state after the write
+     */
+    void recordCase(PatientCase previous, PatientCase current);
+
+    /**
+     * Copies the fields that the counters are built from, so the previous state
+     * of a case can be passed to {@link #recordCase} after it is modified.
+     *
+     * @param patientCase the case to copy
+     * @return a detached copy of the counted fields
+     */
+    PatientCase snapshot(PatientCase patientCase);
+
+    /**
+     * @param from the first day of the window, or null
+     * @param to   the last day of the window, or null
+     * @return the number of cases per season and predicted disease
+     */
+    Map<String, Map<String, Long>> getSeasonDiseaseCounts(LocalDate from, LocalDate to);
+
+    /**
+     * @param from the first day of the window, or null
+     * @param to   the last day of the window, or null
+     * @return the number of cases per location and predicted disease
+     */
+    Map<String, Map<String, Long>> getLocationDiseaseCounts(LocalDate from, LocalDate to);
+
+    /**
+     * @param from the first day of the window, or null
+     * @param to   the last day of the window, or null
+     * @return the number of occurrences of each symptom, trimmed and lower-cased
+     */
+    Map<String, Long> getSymptomCounts(LocalDate from, LocalDate to);
+
+    /**
+     * @param from the first day of the window, or null
+     * @param to   the last day of the window, or null
+     * @return the number of cases per gender, lower-cased
+     */
+    Map<String, Long> getGenderCounts(LocalDate from, LocalDate to);
+
+    /**
+     * @param from the first day of the window, or null
+     * @param to   the last day of the window, or null
+     * @return the number of cases per ten-year age group (e.g., "20-29", "70+")
+     */
+    Map<String, Long> getAgeGroupCounts(LocalDate from, LocalDate to);
+}
@@ -1,5 +1,6 @@
 package com.prediction.backend.services;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import com.prediction.backend.dto.response.AgeGroupStatDTO;
@@ -8,16 +9,20 @@ import com.prediction.backend.dto.response.DiseaseBySeasonDTO;
 import com.prediction.backend.dto.response.GenderStatDTO;
 import com.prediction.backend.dto.response.WordCloudItemDTO;
 
+/**
+ * Statistics over patient cases. The from and to dates are inclusive and may be
+ * null to leave that side of the window open.
+ */
 public interface StatisticsService {
-    public List<DiseaseBySeasonDTO> getDiseaseBySeasonStats();
+    public List<DiseaseBySeasonDTO> getDiseaseBySeasonStats(LocalDate from, LocalDate to);
 
-    public List<DiseaseByLocationDTO> getDiseaseByLocationStats();
+    public List<DiseaseByLocationDTO> getDiseaseByLocationStats(LocalDate from, LocalDate to);
 
-    public List<WordCloudItemDTO> getSymptomWordCloud();
+    public List<WordCloudItemDTO> getSymptomWordCloud(LocalDate from, LocalDate to);
 
-    public List<WordCloudItemDTO> getRiskFactorWordCloud();
+    public List<WordCloudItemDTO> getRiskFactorWordCloud(LocalDate from, LocalDate to);
 
-    public List<GenderStatDTO> getGenderStats();
+    public List<GenderStatDTO> getGenderStats(LocalDate from, LocalDate to);
 
-    public List<AgeGroupStatDTO> getAgeGroupStats();
+    public List<AgeGroupStatDTO> getAgeGroupStats(LocalDate from, LocalDate to);
 }
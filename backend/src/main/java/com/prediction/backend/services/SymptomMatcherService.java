@@ -0,0 +1,43 @@
+package com.prediction.backend.services;
+
+import com.prediction.backend.models.Symptom;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service interface for resolving free-text symptom names to symptom IDs.
+ * Names are matched in memory against the English name, Vietnamese name and
+ * synonyms of every symptom, ignoring case and Vietnamese diacritics.
+ */
+public interface SymptomMatcherService {
+
+    /**
+     * Rebuilds the matcher from the 'symptoms' table.
+     */
+    void rebuild();
+
+    /**
+     * Resolves a single symptom name to the IDs of the matching symptoms.
+     *
+     * @param name the free-text symptom name (e.g., "sốt", "Sot cao", "cough")
+     * @return a list of matching symptom IDs, empty if nothing matches
+     */
+    List<String> resolve(String name);
+
+    /**
+     * Resolves a batch of symptom names in one call.
+     *
+     * @param names the free-text symptom names
+     * @return a map from each input name to its matching symptom IDs, in input
+     *         order. Names without a match map to an empty list.
+     */
+    Map<String, List<String>> resolveAll(List<String> names);
+
+    /**
+     * Adds a newly created symptom to the matcher.
+     *
+     * @param symptom the symptom that was saved
+     */
+    void addSymptom(Symptom symptom);
+}
@@ -0,0 +1,47 @@
+package com.prediction.backend.services;
+
+import com.prediction.backend.dto.SymptomRuleDTO;
+import com.prediction.backend.dto.SymptomSuggestionDTO;
+
+import java.util.List;
+
+/**
+ * Service interface for suggesting related symptoms from the association rules
+ * mined from the symptom dataset (FastApi/symptom_association_rules.csv) and
+ * from the diagnosed patient cases (see {@link RuleMiningService}).
+ */
+public interface SymptomSuggestionService {
+
+    /**
+     * The measure used to order suggestions.
+     */
+    enum Ranking {
+        CONFIDENCE, LIFT
+    }
+
+    /**
+     * Reloads the rules from the rules file.
+     */
+    void rebuild();
+
+    /**
+     * Replaces the rules mined from the patient cases. They are used together
+     * with the rules of the rules file.
+     *
+     * @param rules the mined rules
+     */
+    void publishMinedRules(List<SymptomRuleDTO> rules);
+
+    /**
+     * Suggests the symptoms implied by the rules whose antecedents are all among
+     * the given symptoms. Symptoms already given are never suggested.
+     *
+     * @param symptoms the symptoms the patient reported, in English or
+     *                 Vietnamese
+     * @param topN     the maximum number of suggestions
+     * @param ranking  the measure to order suggestions by
+     * @return the suggested symptoms, best first. Empty if no rule applies or
+     *         the rules are not loaded.
+     */
+    List<SymptomSuggestionDTO> suggest(List<String> symptoms, int topN, Ranking ranking);
+}
@@ -0,0 +1,100 @@
+package com.prediction.backend.services.impl;
+
+import com.prediction.backend.config.CacheConfig;
+import com.prediction.backend.models.Disease;
+import com.prediction.backend.models.Symptom;
+import com.prediction.backend.services.CatalogCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Implementation of the CatalogCacheService interface.
+ * Builds the same keys as the @Cacheable annotations on DiseaseServiceImpl and
+ * SymptomServiceImpl and evicts exactly those.
+ */
+@Service
+@Slf4j
+public class CatalogCacheServiceImpl implements CatalogCacheService {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Constructs a CatalogCacheServiceImpl with the application cache manager.
+     *
+     * @param cacheManager the cache manager holding the catalog caches
+     */
+    @Autowired
+    public CatalogCacheServiceImpl(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void evictDisease(Disease previous, Disease current) {
+        Set<String> ids = new LinkedHashSet<>();
+        Set<String> listKeys = new LinkedHashSet<>();
+        listKeys.add(CacheConfig.ALL);
+        for (Disease disease : new Disease[] { previous, current }) {
+            if (disease == null) {
+                continue;
+            }
+            ids.add(disease.getDiseaseId());
+            if (disease.getSeverity() != null) {
+                listKeys.add("severity:" + disease.getSeverity());
+            }
+            if (disease.getSpecialization() != null) {
+                listKeys.add("specialization:" + disease.getSpecialization());
+            }
+            addNameKey(listKeys, "nameEn:", disease.getNameEn());
+            addNameKey(listKeys, "nameVn:", disease.getNameVn());
+        }
+        evict(CacheConfig.DISEASES, ids);
+        evict(CacheConfig.DISEASE_DETAILS, ids);
+        evict(CacheConfig.DISEASE_LISTS, listKeys);
+    }
+
+    @Override
+    public void evictDiseaseDetails(String diseaseId) {
+        evict(CacheConfig.DISEASE_DETAILS, Set.of(diseaseId));
+    }
+
+    @Override
+    public void evictSymptom(Symptom symptom) {
+        if (symptom == null) {
+            return;
+        }
+        Set<String> listKeys = new LinkedHashSet<>();
+        listKeys.add(CacheConfig.ALL);
+        if (symptom.getFrequency() != null) {
+            listKeys.add("frequency:" + symptom.getFrequency());
+        }
+        addNameKey(listKeys, "nameEn:", symptom.getNameEn());
+        addNameKey(listKeys, "nameVn:", symptom.getNameVn());
+        evict(CacheConfig.SYMPTOMS, Set.of(symptom.getSymptomId()));
+        evict(CacheConfig.SYMPTOM_LISTS, listKeys);
+    }
+
+    private static void addNameKey(Set<String> keys, String prefix, String name) {
+        if (name != null) {
+            keys.add(prefix + name.toLowerCase());
+        }
+    }
+
+    private void evict(String cacheName, Set<String> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (String key : keys) {
+            if (key != null) {
+                cache.evict(key);
+            }
+        }
+        log.debug("Evicted {} from cache {}", keys, cacheName);
+    }
+}
@@ -1,72 +1,126 @@
 package com.prediction.backend.services.impl;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.prediction.backend.models.PatientCase;
 import com.prediction.backend.repositories.PatientCaseRepository;
 import com.prediction.backend.services.ChartService;
 
 @Service
 public class ChartServiceImpl implements ChartService {
-    @Autowired
-    private PatientCaseRepository repo;
+    // Bảng tra cứu vùng miền theo địa điểm, tính sẵn một lần
+    private static final String[] REGIONS = { "Miền Bắc", "Miền Trung", "Miền Nam", "Khác" };
+    private static final int OTHER_REGION = 3;
+    private static final Map<String, Integer> REGION_BY_LOCATION = Map.of(
+            "Hà Nội", 0, "Hải Phòng", 0,
+            "Đà Nẵng", 1, "Huế", 1, "Nha Trang", 1, "Vũng Tàu", 1,
+            "TP.HCM", 2, "Cần Thơ", 2);
 
-    @Override
-    public Map<String, Object> getChartData() {
-        List<PatientCase> list = repo.findAll();
+    // Bảng tra cứu nhóm tuổi theo tuổi (0..MAX_TABULATED_AGE)
+    private static final String[] AGE_GROUPS = { "Trẻ em", "Thiếu niên", "Thanh niên", "Trung niên",
+            "Người cao tuổi", "Không rõ" };
+    private static final int UNKNOWN_AGE_GROUP = 5;
+    private static final int ELDERLY_AGE_GROUP = 4;
+    private static final int MAX_TABULATED_AGE = 130;
+    private static final int[] AGE_GROUP_BY_AGE = new int[MAX_TABULATED_AGE + 1];
 
-        Map<String, Long> diseaseData = list.stream()
-                .filter(pc -> pc.getPredictedDisease() != null)
-                .collect(Collectors.groupingBy(PatientCase::getPredictedDisease, Collectors.counting()));
+    // Giới hạn của kiểu DATETIME trong MySQL, dùng khi một đầu của khoảng thời gian bị bỏ trống
+    private static final LocalDateTime MIN_DATETIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATETIME = LocalDateTime.of(9999, 12, 31, 0, 0);
 
-        Map<String, Long> regionData = list.stream()
-                .filter(pc -> classifyRegion(pc.getLocation()) != null)
-                .collect(Collectors.groupingBy(b -> classifyRegion(b.getLocation()), Collectors.counting()));
+    static {
+        for (int age = 0; age <= MAX_TABULATED_AGE; age++) {
+            AGE_GROUP_BY_AGE[age] = age <= 12 ? 0 : age <= 24 ? 1 : age <= 44 ? 2 : age <= 64 ? 3 : ELDERLY_AGE_GROUP;
+        }
+    }
+
+    @Autowired
+    private PatientCaseRepository repo;
 
-        Map<String, Long> ageGroupData = list.stream()
-                .filter(pc -> classifyAgeGroup(pc.getAge()) != null)
-                .collect(Collectors.groupingBy(b -> classifyAgeGroup(b.getAge()), Collectors.counting()));
+    /**
+     * Builds the four chart histograms in a single pass over a streaming cursor,
+     * so memory use does not grow with the number of cases. With a date window
+     * only the cases in the window are read, through the date indexes.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> getChartData(LocalDate from, LocalDate to) {
+        long[] regionCounts = new long[REGIONS.length];
+        long[] ageGroupCounts = new long[AGE_GROUPS.length];
+        Map<String, long[]> diseaseCounts = new HashMap<>();
+        Map<String, long[]> seasonCounts = new HashMap<>();
 
-        Map<String, Long> seasonData = list.stream()
-                .filter(pc -> pc.getSeason() != null)
-                .collect(Collectors.groupingBy(PatientCase::getSeason, Collectors.counting()));
+        try (Stream<Object[]> rows = streamRows(from, to)) {
+            rows.forEach(row -> {
+                String disease = (String) row[0];
+                if (disease != null) {
+                    diseaseCounts.computeIfAbsent(disease, k -> new long[1])[0]++;
+                }
+                regionCounts[classifyRegion((String) row[1])]++;
+                ageGroupCounts[classifyAgeGroup((Integer) row[2])]++;
+                String season = (String) row[3];
+                if (season != null) {
+                    seasonCounts.computeIfAbsent(season, k -> new long[1])[0]++;
+                }
+            });
+        }
 
         Map<String, Object> result = new HashMap<>();
-        result.put("regionData", regionData);
-        result.put("ageGroupData", ageGroupData);
-        result.put("seasonData", seasonData);
-        result.put("diseaseData", diseaseData);
+        result.put("regionData", toHistogram(REGIONS, regionCounts));
+        result.put("ageGroupData", toHistogram(AGE_GROUPS, ageGroupCounts));
+        result.put("seasonData", toHistogram(seasonCounts));
+        result.put("diseaseData", toHistogram(diseaseCounts));
 
         return result;
     }
 
-    private String classifyRegion(String location) {
-        if (List.of("Hà Nội", "Hải Phòng").contains(location))
-            return "Miền Bắc";
-        if (List.of("Đà Nẵng", "Huế", "Nha Trang", "Vũng Tàu").contains(location))
-            return "Miền Trung";
-        if (List.of("TP.HCM", "Cần Thơ").contains(location))
-            return "Miền Nam";
-        return "Khác";
+    private Stream<Object[]> streamRows(LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return repo.streamChartColumns();
+        }
+        return repo.streamChartColumnsBetween(
+                from != null ? from.atStartOfDay() : MIN_DATETIME,
+                to != null ? to.plusDays(1).atStartOfDay() : MAX_DATETIME);
+    }
+
+    private static int classifyRegion(String location) {
+        if (location == null)
+            return OTHER_REGION;
+        return REGION_BY_LOCATION.getOrDefault(location, OTHER_REGION);
     }
 
-    private String classifyAgeGroup(Integer age) {
+    private static int classifyAgeGroup(Integer age) {
         if (age == null)
-            return "Không rõ";
-        if (age <= 12)
-            return "Trẻ em";
-        if (age <= 24)
-            return "Thiếu niên";
-        if (age <= 44)
-            return "Thanh niên";
-        if (age <= 64)
-            return "Trung niên";
-        return "Người cao tuổi";
+            return UNKNOWN_AGE_GROUP;
+        if (age < 0)
+            return AGE_GROUP_BY_AGE[0];
+        if (age > MAX_TABULATED_AGE)
+            return ELDERLY_AGE_GROUP;
+        return AGE_GROUP_BY_AGE[age];
+    }
+
+    // Chỉ giữ các nhóm có dữ liệu, giống kết quả groupingBy trước đây
+    private static Map<String, Long> toHistogram(String[] labels, long[] counts) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            if (counts[i] > 0) {
+                histogram.put(labels[i], counts[i]);
+            }
+        }
+        return histogram;
+    }
+
+    private static Map<String, Long> toHistogram(Map<String, long[]> counts) {
+        Map<String, Long> histogram = new HashMap<>(counts.size() * 2);
+        counts.forEach((label, count) -> histogram.put(label, count[0]));
+        return histogram;
     }
 }
@@ -1,95 +1,87 @@
 package com.prediction.backend.services.impl;
 
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import com.prediction.backend.services.ChatBotService;
-
+import com.prediction.backend.services.ChatContextService;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import com.prediction.backend.config.ChatBotConfig;
+import com.prediction.backend.config.ResilienceConfig;
 import com.prediction.backend.dto.ConversationDTO;
 
 @Service
+@Slf4j
 public class ChatBotServiceImpl implements ChatBotService {
 
     private final WebClient webClient;
     private final Gson gson = new Gson();
-
-    public ChatBotServiceImpl() {
-        this.webClient = WebClient.builder()
-                .baseUrl(ChatBotConfig.API_URL)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
-
+    private final Timer firstTokenTimer;
+    private final ChatContextService chatContextService;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final Bulkhead bulkhead;
+
+    public ChatBotServiceImpl(@Qualifier("geminiWebClient") WebClient webClient, MeterRegistry meterRegistry,
+            ChatContextService chatContextService, CircuitBreakerRegistry circuitBreakerRegistry,
+            RetryRegistry retryRegistry, BulkheadRegistry bulkheadRegistry) {
+        this.webClient = webClient;
+        this.chatContextService = chatContextService;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(ResilienceConfig.GEMINI);
+        this.retry = retryRegistry.retry(ResilienceConfig.GEMINI);
+        this.bulkhead = bulkheadRegistry.bulkhead(ResilienceConfig.GEMINI);
+        this.firstTokenTimer = Timer.builder("chatbot.stream.first-token")
+                .description("Time from sending a streaming request to Gemini until the first text chunk")
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry);
     }
 
     @Override
     public Mono<String> ask(String userMessage, ConversationDTO conversationDTO, String conversationId) {
-
-        if (conversationDTO.getContents().isEmpty()) {
-            String prompt = """
-                    You are a friendly and intelligent virtual medical assistant fluent in both Vietnamese and English. Your primary goal is to gather comprehensive health-related information from the user in a natural and respectful manner. You MUST respond in the same language as the user.
-                    Your responses should ultimately lead to the collection of data in the following JSON format:
-
-                    ```json{
-                    "symptomStartTime": LocalDateTime
-                    "age": int | null,
-                    "gender": "Male" | "Female" | "Other" | "Nam" | "Female" | "Other" | null,
-                    "region": string | null
-                    },
-                    "symptoms": [
-                    string.string
-                    ],
-                    "risk_factors": [
-                    string.string
-                    ]
-                    }```
-
-                    Here are the rules for our conversation:
-
-                    1. **Initial Understanding & Symptom Extraction:** Begin by carefully understanding the user's initial description of their health concerns. **Actively infer symptoms from natural language descriptions** (e.g., "I feel cold" = "cold fever," "I have a terrible cough" = "cough violently"). Do not ask about symptom severity.
-
-                    2. **Proactive Symptom Suggestion:** Based on the symptoms the user provides or that you infer, proactively suggest other common or related symptoms that might be relevant. For example, if a user mentions a cough, you might ask, "Are you also experiencing a sore throat, fever, or body aches?" This helps gather more complete information.
-
-                    3. **Risk Factors:**
-                    * If the user mentions any risk factors (such as chronic illnesses, recent exposures, lifestyle habits, or family medical history), carefully record them.
-                    * If risk factors are not mentioned, gently ask about them **once**. If the user doesn't respond or clearly avoids the question, do not repeat it.
-
-                    4. **Personal Metadata:** After you have a good grasp of the symptoms and any risk factors, gently inquire about their age, gender, and current region if these details haven't been provided yet. You may note other personal information (like name, email, or current time) if the user offers it voluntarily, but do not explicitly ask for it.
-
-                    5. **Conversation Conclusion:**
-                    * If the user clearly states "no more," "nothing else," "I have nothing more," "that's enough," or an equivalent phrase, immediately amid the conversation and output the complete JSON object with no additional text.
-                    * If, at any point, an external disease model indicates a lack of confidence due to insufficient symptoms or risk factor information, you must **actively ask more questions to gather additional details** and **recommend calling a doctor**.
-                    * If the user, in response to this recommendation, states "no more symptoms," "call doctor," "call doctor," or similar, then you **must return the string "1" followed by the collected JSON data**. This indicates the need for direct medical intervention.
-
-                    6. **Language Consistency:** Always respond in the same language the user uses (Vietnamese or English).
-
-                    Begin your conversation based on this user message: 
-                    "%S"
-                    """
-                    .formatted(userMessage);
-            conversationDTO.addUserMessage(prompt);
-        }
-
-        conversationDTO.addUserMessage(userMessage);
-        Map<String, Object> message = Map.of("contents", conversationDTO.getContents());
+        Map<String, Object> message = buildRequest(userMessage, conversationDTO);
 
         return webClient.post()
+                .uri(ChatBotConfig.API_URL)
                 .bodyValue(gson.toJson(message))
                 .retrieve()
                 .bodyToMono(String.class)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry))
                 .map(response -> {
                     JsonObject json = JsonParser.parseString(response).getAsJsonObject();
                     JsonArray candidates = json.getAsJsonArray("candidates");
@@ -128,18 +120,103 @@ public class ChatBotServiceImpl implements ChatBotService {
                     }
                     return "Sorry, no reply from chatbot.";
                 })
+                .onErrorResume(this::fallbackReply);
+    }
+
+    @Override
+    public Flux<String> askStream(String userMessage, ConversationDTO conversationDTO, String conversationId) {
+        Map<String, Object> message = buildRequest(userMessage, conversationDTO);
+        StringBuilder reply = new StringBuilder();
+        AtomicBoolean firstChunk = new AtomicBoolean(true);
+        long start = System.nanoTime();
+
+        return webClient.post()
+                .uri(ChatBotConfig.STREAM_API_URL)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(gson.toJson(message))
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                // Không thử lại luồng vì các phần đầu có thể đã được gửi tới người dùng
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .map(ServerSentEvent::data)
+                .filter(Objects::nonNull)
+                .map(ChatBotServiceImpl::extractChunkText)
+                .filter(text -> !text.isEmpty())
+                .doOnNext(text -> {
+                    if (firstChunk.compareAndSet(true, false)) {
+                        firstTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                    reply.append(text);
+                })
+                // Chỉ lưu vào lịch sử khi đã nhận đủ phản hồi
+                .doOnComplete(() -> {
+                    if (reply.length() > 0) {
+                        conversationDTO.addChatBotMessage(reply.toString());
+                    }
+                })
+                .switchIfEmpty(Flux.just("Sorry, no reply from chatbot."))
                 .onErrorResume(e -> {
-                    if (e instanceof WebClientResponseException responseEx) {
-                        System.err.println("Gemini API Error - Status: " + responseEx.getStatusCode());
-                        System.err.println("Body: " + responseEx.getResponseBodyAsString());
-                        return Mono.just("Error from chatbot system. Please try again.");
-                    } else if (e instanceof WebClientRequestException requestEx) {
-                        System.err.println("Can not connect to Gemini API: " + requestEx.getMessage());
-                        return Mono.just("Cannot connect to system. Please check network or try again.");
+                    if (firstChunk.get()) {
+                        return fallbackReply(e).flux();
                     }
-                    System.err.println("Unexpected error: " + e.getMessage());
-                    return Mono.just("Unexpected error occurred.");
+                    // Đã gửi một phần phản hồi: kết thúc tại đó, không nối thêm thông báo lỗi
+                    log.warn("Gemini stream for conversation {} failed after {} characters: {}",
+                            conversationId, reply.length(), e.toString());
+                    conversationDTO.addChatBotMessage(reply.toString());
+                    return Flux.empty();
                 });
     }
 
+    /**
+     * Concatenates the text parts of the first candidate of one streamed chunk.
+     */
+    private static String extractChunkText(String data) {
+        JsonObject json = JsonParser.parseString(data).getAsJsonObject();
+        JsonArray candidates = json.getAsJsonArray("candidates");
+        if (candidates == null || candidates.size() == 0) {
+            return "";
+        }
+        JsonObject content = candidates.get(0).getAsJsonObject().getAsJsonObject("content");
+        if (content == null || !content.has("parts")) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (JsonElement part : content.getAsJsonArray("parts")) {
+            JsonObject partObject = part.getAsJsonObject();
+            if (partObject.has("text")) {
+                text.append(partObject.get("text").getAsString());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Adds the user message to the conversation and returns the request body
+     * for Gemini, with the history trimmed by the context manager.
+     */
+    private Map<String, Object> buildRequest(String userMessage, ConversationDTO conversationDTO) {
+        conversationDTO.addUserMessage(userMessage);
+        return chatContextService.buildRequest(conversationDTO);
+    }
+
+    private Mono<String> fallbackReply(Throwable e) {
+        if (e instanceof CallNotPermittedException || e instanceof BulkheadFullException) {
+            // Trả lời ngay khi Gemini đang quá tải hoặc mạch đang mở
+            log.warn("Gemini call rejected: {}", e.getMessage());
+            return Mono.just("The chatbot is busy right now. Please try again in a moment.");
+        }
+        if (e instanceof WebClientResponseException responseEx) {
+            log.warn("Gemini API error - status {}, body: {}", responseEx.getStatusCode(),
+                    responseEx.getResponseBodyAsString());
+            return Mono.just("Error from chatbot system. Please try again.");
+        } else if (e instanceof WebClientRequestException requestEx) {
+            log.warn("Cannot connect to Gemini API: {}", requestEx.getMessage());
+            return Mono.just("Cannot connect to system. Please check network or try again.");
+        }
+        log.warn("Unexpected error calling Gemini API: {}", e.toString());
+        return Mono.just("Unexpected error occurred.");
+    }
+
 }
\ No newline at end of file
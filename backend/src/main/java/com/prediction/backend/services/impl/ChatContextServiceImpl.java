@@ -0,0 +1,207 @@
+package com.prediction.backend.services.impl;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.prediction.backend.dto.ConversationDTO;
+import com.prediction.backend.services.ChatContextService;
+import com.prediction.backend.services.SymptomMatcherService;
+import com.prediction.backend.services.SymptomService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementation of the ChatContextService interface.
+ * Turns are dropped from the front of the history while there are more than
+ * chat.context.max-turns of them or the estimated size of the request exceeds
+ * chat.context.token-budget. A dropped user turn contributes the catalog
+ * symptoms it mentions to the summary; a dropped bot turn carrying the collected
+ * JSON contributes its symptoms and risk factors.
+ */
+@Service
+@Slf4j
+public class ChatContextServiceImpl implements ChatContextService {
+
+    static final String SYSTEM_INSTRUCTION = """
+                    You are a friendly and intelligent virtual medical assistant fluent in both Vietnamese and English. Your primary goal is to gather comprehensive health-related information from the user in a natural and respectful manner. You MUST respond in the same language as the user.
+                    Your responses should ultimately lead to the collection of data in the following JSON format:
+
+                    ```json{
+                    "symptomStartTime": LocalDateTime
+                    "age": int | null,
+                    "gender": "Male" | "Female" | "Other" | "Nam" | "Female" | "Other" | null,
+                    "region": string | null
+                    },
+                    "symptoms": [
+                    string.string
+                    ],
+                    "risk_factors": [
+                    string.string
+                    ]
+                    }```
+
+                    Here are the rules for our conversation:
+
+                    1. **Initial Understanding & Symptom Extraction:** Begin by carefully understanding the user's initial description of their health concerns. **Actively infer symptoms from natural language descriptions** (e.g., "I feel cold" = "cold fever," "I have a terrible cough" = "cough violently"). Do not ask about symptom severity.
+
+                    2. **Proactive Symptom Suggestion:** Based on the symptoms the user provides or that you infer, proactively suggest other common or related symptoms that might be relevant. For example, if a user mentions a cough, you might ask, "Are you also experiencing a sore throat, fever, or body aches?" This helps gather more complete information.
+
+                    3. **Risk Factors:**
+                    * If the user mentions any risk factors (such as chronic illnesses, recent exposures, lifestyle habits, or family medical history), carefully record them.
+                    * If risk factors are not mentioned, gently ask about them **once**. If the user doesn't respond or clearly avoids the question, do not repeat it.
+
+                    4. **Personal Metadata:** After you have a good grasp of the symptoms and any risk factors, gently inquire about their age, gender, and current region if these details haven't been provided yet. You may note other personal information (like name, email, or current time) if the user offers it voluntarily, but do not explicitly ask for it.
+
+                    5. **Conversation Conclusion:**
+                    * If the user clearly states "no more," "nothing else," "I have nothing more," "that's enough," or an equivalent phrase, immediately amid the conversation and output the complete JSON object with no additional text.
+                    * If, at any point, an external disease model indicates a lack of confidence due to insufficient symptoms or risk factor information, you must **actively ask more questions to gather additional details** and **recommend calling a doctor**.
+                    * If the user, in response to this recommendation, states "no more symptoms," "call doctor," "call doctor," or similar, then you **must return the string "1" followed by the collected JSON data**. This indicates the need for direct medical intervention.
+
+                    6. **Language Consistency:** Always respond in the same language the user uses (Vietnamese or English).
+                    """;
+
+    // Lời nhắc cũ được lưu như một tin nhắn của người dùng ở đầu lịch sử
+    private static final String LEGACY_PROMPT_PREFIX = "You are a friendly and intelligent virtual medical assistant";
+
+    // Ước lượng thô: khoảng 4 ký tự cho mỗi token
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MAX_SUMMARY_ITEMS = 50;
+
+    private final SymptomMatcherService symptomMatcherService;
+    private final SymptomService symptomService;
+
+    @Value("${chat.context.max-turns:12}")
+    private int maxTurns;
+
+    @Value("${chat.context.token-budget:4000}")
+    private int tokenBudget;
+
+    /**
+     * Constructs a ChatContextServiceImpl with the services used to summarise
+     * dropped turns.
+     *
+     * @param symptomMatcherService In-memory symptom name and synonym matcher.
+     * @param symptomService        Service for looking up symptom names.
+     */
+    @Autowired
+    public ChatContextServiceImpl(SymptomMatcherService symptomMatcherService, SymptomService symptomService) {
+        this.symptomMatcherService = symptomMatcherService;
+        this.symptomService = symptomService;
+    }
+
+    @Override
+    public Map<String, Object> buildRequest(ConversationDTO conversation) {
+        compact(conversation);
+        String instruction = systemInstruction(conversation);
+        return Map.of(
+                "systemInstruction", Map.of("parts", List.of(Map.of("text", instruction))),
+                "contents", new ArrayList<>(conversation.getContents()));
+    }
+
+    /**
+     * Drops turns from the front of the history until it fits the window and
+     * the token budget and starts with a user turn. The last turn is always
+     * kept.
+     */
+    private void compact(ConversationDTO conversation) {
+        List<Map<String, Object>> contents = conversation.getContents();
+        while (contents.size() > 1
+                && (contents.size() > maxTurns
+                        || !"user".equals(contents.get(0).get("role"))
+                        || estimateTokens(conversation) > tokenBudget)) {
+            Map<String, Object> dropped = contents.remove(0);
+            summarise(conversation, dropped);
+            conversation.setSummarizedTurns(conversation.getSummarizedTurns() + 1);
+        }
+    }
+
+    private void summarise(ConversationDTO conversation, Map<String, Object> content) {
+        String text = textOf(content);
+        if (text.isEmpty() || text.startsWith(LEGACY_PROMPT_PREFIX)) {
+            return;
+        }
+        try {
+            if ("model".equals(content.get("role"))) {
+                Optional<String> json = ConversationDTO.isJsonValid(text)
+                        ? ConversationDTO.extractJsonFromText(text)
+                        : Optional.empty();
+                if (json.isPresent()) {
+                    JsonObject obj = JsonParser.parseString(json.get()).getAsJsonObject();
+                    addStrings(conversation.getSummarySymptoms(), obj, "symptoms");
+                    addStrings(conversation.getSummaryRiskFactors(), obj, "risk_factors");
+                }
+            } else {
+                for (String symptomId : symptomMatcherService.resolve(text)) {
+                    var symptom = symptomService.getSymptomById(symptomId);
+                    addDistinct(conversation.getSummarySymptoms(),
+                            symptom.getNameVn() != null ? symptom.getNameVn() : symptom.getNameEn());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not summarise dropped turn: {}", e.getMessage());
+        }
+    }
+
+    private String systemInstruction(ConversationDTO conversation) {
+        StringBuilder instruction = new StringBuilder(SYSTEM_INSTRUCTION);
+        if (conversation.getUserDetail() != null) {
+            instruction.append("\nUser detail: ").append(conversation.getUserDetail()).append('\n');
+        }
+        if (conversation.getSummarizedTurns() > 0) {
+            instruction.append("\nSummary of the ").append(conversation.getSummarizedTurns())
+                    .append(" earlier turns no longer shown:\n")
+                    .append("- symptoms mentioned: ")
+                    .append(joinOrNone(conversation.getSummarySymptoms())).append('\n')
+                    .append("- risk factors mentioned: ")
+                    .append(joinOrNone(conversation.getSummaryRiskFactors())).append('\n');
+        }
+        return instruction.toString();
+    }
+
+    private int estimateTokens(ConversationDTO conversation) {
+        long chars = systemInstruction(conversation).length();
+        for (Map<String, Object> content : conversation.getContents()) {
+            chars += textOf(content).length();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (chars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN);
+    }
+
+    private static String textOf(Map<String, Object> content) {
+        StringBuilder text = new StringBuilder();
+        if (content.get("parts") instanceof List<?> parts) {
+            for (Object part : parts) {
+                if (part instanceof Map<?, ?> partMap && partMap.get("text") instanceof String partText) {
+                    text.append(partText);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static void addStrings(List<String> target, JsonObject obj, String key) {
+        if (obj.has(key) && obj.get(key).isJsonArray()) {
+            for (JsonElement element : obj.getAsJsonArray(key)) {
+                if (element.isJsonPrimitive()) {
+                    addDistinct(target, element.getAsString());
+                }
+            }
+        }
+    }
+
+    private static void addDistinct(List<String> target, String value) {
+        if (value != null && !value.isBlank() && !target.contains(value) && target.size() < MAX_SUMMARY_ITEMS) {
+            target.add(value);
+        }
+    }
+
+    private static String joinOrNone(List<String> values) {
+        return values.isEmpty() ? "(none)" : String.join(", ", values);
+    }
+}
@@ -0,0 +1,295 @@
+package com.prediction.backend.services.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.prediction.backend.exceptions.AppException;
+import com.prediction.backend.exceptions.ErrorCode;
+import com.prediction.backend.models.ChatMessage;
+import com.prediction.backend.models.Conversation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind persistence for chat messages. A message gets its ID and
+ * timestamp when it is queued, so it can be broadcast right away; the queue is
+ * written to 'chat_messages' in ordered insertMany batches of up to
+ * chat.write-behind.max-batch messages, or whatever arrived within
+ * chat.write-behind.max-wait. Each batch then updates the inbox fields of its
+ * conversations with one bulk write: lastMessageTime moves forward with $max,
+ * the unread count of every other participant is incremented, and the last
+ * message preview is set if the batch holds the latest message.
+ * <p>
+ * One writer thread takes the batches off the queue, so they are written in
+ * order. The queue holds at most chat.write-behind.queue-capacity messages;
+ * when it is full, senders wait up to chat.write-behind.enqueue-timeout for
+ * room and then get an error, so a slow database slows the chat down instead
+ * of growing the heap. On shutdown the queue is drained before MongoDB is
+ * closed. With chat.write-behind.enabled=false each message is written by its
+ * sender.
+ */
+@Component
+@Slf4j
+public class ChatMessageWriteBehind {
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Duration enqueueTimeout;
+    private final Duration shutdownTimeout;
+    private static final int PREVIEW_LENGTH = 100;
+
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+
+    private final BlockingQueue<ChatMessage> buffer;
+    private final int maxBatch;
+    private final Duration maxWait;
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private volatile boolean accepting = true;
+
+    public ChatMessageWriteBehind(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+            @Value("${chat.write-behind.enabled:true}") boolean enabled,
+            @Value("${chat.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${chat.write-behind.max-batch:100}") int maxBatch,
+            @Value("${chat.write-behind.max-wait:50ms}") Duration maxWait,
+            @Value("${chat.write-behind.enqueue-timeout:5s}") Duration enqueueTimeout,
+            @Value("${chat.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxWait = maxWait;
+        this.enqueueTimeout = enqueueTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.batchSize = DistributionSummary.builder("chat.write-behind.batch.size")
+                .description("Number of chat messages written in one batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("chat.write-behind.flush")
+                .description("Time to write one batch of chat messages")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.buffer = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("chat.write-behind.queue", buffer, BlockingQueue::size)
+                .description("Chat messages waiting to be written")
+                .register(meterRegistry);
+
+        if (enabled) {
+            // Một luồng ghi duy nhất: các lô được ghi lần lượt, giữ đúng thứ tự tin nhắn
+            Thread writer = new Thread(this::drain, "chat-write-behind");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            drained.countDown();
+        }
+    }
+
+    /**
+     * Assigns the message its ID and timestamp if it has none and queues it
+     * for writing. After shutdown has started the message is written directly.
+     *
+     * @param message the message to persist
+     * @return the same message, ready to be broadcast
+     * @throws AppException if the queue stayed full for the enqueue timeout
+     */
+    public ChatMessage enqueue(ChatMessage message) {
+        if (message.getId() == null) {
+            message.setId(new ObjectId().toHexString());
+        }
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(Instant.now());
+        }
+        if (!enabled || !accepting) {
+            write(List.of(message));
+            return message;
+        }
+
+        boolean queued;
+        try {
+            // Hàng đợi đầy: chờ bộ ghi giải phóng chỗ, tối đa enqueue-timeout
+            queued = buffer.offer(message, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            log.warn("Chat message queue is full, rejecting message of conversation {}", message.getConversationId());
+            throw new AppException(ErrorCode.CHAT_QUEUE_FULL);
+        }
+        return message;
+    }
+
+    /**
+     * Stops accepting messages and waits for the queued ones to be written.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        accepting = false;
+        if (!drained.await(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Chat message queue not drained within {}, {} messages left unwritten",
+                    shutdownTimeout, buffer.size());
+            return;
+        }
+        // Tin nhắn được đưa vào hàng đợi đúng lúc luồng ghi dừng
+        List<ChatMessage> left = new ArrayList<>();
+        buffer.drainTo(left);
+        if (!left.isEmpty()) {
+            write(left);
+        }
+    }
+
+    private void drain() {
+        List<ChatMessage> batch = new ArrayList<>(maxBatch);
+        try {
+            while (accepting || !buffer.isEmpty()) {
+                ChatMessage first = buffer.poll(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Gom thêm tin nhắn cho đến khi đủ max-batch hoặc hết max-wait
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                buffer.drainTo(batch, maxBatch - batch.size());
+                while (batch.size() < maxBatch && accepting) {
+                    ChatMessage next = buffer.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    buffer.drainTo(batch, maxBatch - batch.size());
+                }
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    // Không để một lô lỗi làm dừng luồng ghi
+                    log.error("Could not write a batch of {} chat messages: {}", batch.size(), e.getMessage());
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Chat message writer interrupted, {} messages left unwritten", buffer.size());
+        } finally {
+            drained.countDown();
+        }
+    }
+
+    private void write(List<ChatMessage> batch) {
+        long start = System.nanoTime();
+        batchSize.record(batch.size());
+        try {
+            mongoTemplate.insert(batch, ChatMessage.class);
+        } catch (Exception e) {
+            // Ghi lại từng tin nhắn; save theo ID nên tin đã được chèn không bị trùng
+            log.warn("Batch insert of {} chat messages failed, writing them one by one: {}",
+                    batch.size(), e.getMessage());
+            for (ChatMessage message : batch) {
+                try {
+                    mongoTemplate.save(message);
+                } catch (Exception saveError) {
+                    log.error("Could not persist chat message {} of conversation {}: {}",
+                            message.getId(), message.getConversationId(), saveError.getMessage());
+                }
+            }
+        }
+
+        try {
+            updateConversations(batch);
+        } catch (Exception e) {
+            log.warn("Could not update the inbox of the conversations of {} chat messages: {}",
+                    batch.size(), e.getMessage());
+        }
+        flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void updateConversations(List<ChatMessage> batch) {
+        // Tin nhắn mới nhất của từng conversation trong lô (lô đã theo thứ tự gửi)
+        Map<String, ChatMessage> latest = new LinkedHashMap<>();
+        for (ChatMessage message : batch) {
+            if (message.getConversationId() != null) {
+                latest.merge(message.getConversationId(), message,
+                        (a, b) -> a.getTimestamp().isAfter(b.getTimestamp()) ? a : b);
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+        Map<String, List<String>> participants = new HashMap<>();
+        Query participantQuery = Query.query(Criteria.where("_id").in(latest.keySet()));
+        participantQuery.fields().include("participantIds");
+        for (Conversation conversation : mongoTemplate.find(participantQuery, Conversation.class)) {
+            participants.put(conversation.getConversationId(),
+                    conversation.getParticipantIds() != null ? conversation.getParticipantIds() : List.of());
+        }
+
+        // Cộng dồn theo người nhận: gọi Update.inc lần nữa cùng khóa sẽ ghi đè giá trị trước
+        Map<String, Map<String, Integer>> unread = new LinkedHashMap<>();
+        for (ChatMessage message : batch) {
+            String conversationId = message.getConversationId();
+            if (conversationId == null || !participants.containsKey(conversationId)) {
+                continue;
+            }
+            Map<String, Integer> counts = unread.computeIfAbsent(conversationId, id -> new LinkedHashMap<>());
+            for (String participantId : participants.get(conversationId)) {
+                if (!Objects.equals(participantId, message.getSenderId())) {
+                    counts.merge(participantId, 1, Integer::sum);
+                }
+            }
+        }
+        if (unread.isEmpty()) {
+            return;
+        }
+        Map<String, Update> counters = new LinkedHashMap<>();
+        unread.forEach((conversationId, counts) -> {
+            Update update = new Update().max("lastMessageTime", latest.get(conversationId).getTimestamp());
+            counts.forEach((participantId, count) -> update.inc("unreadCounts." + participantId, count));
+            counters.put(conversationId, update);
+        });
+
+        // ORDERED: preview chỉ được ghi sau $max, và chỉ khi lô chứa tin nhắn mới nhất
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class);
+        counters.forEach((conversationId, update) -> updates.updateOne(
+                Query.query(Criteria.where("_id").is(conversationId)), update));
+        counters.keySet().forEach(conversationId -> {
+            ChatMessage message = latest.get(conversationId);
+            updates.updateOne(
+                    Query.query(Criteria.where("_id").is(conversationId)
+                            .and("lastMessageTime").is(message.getTimestamp())),
+                    new Update().set("lastMessageId", message.getId())
+                            .set("lastMessagePreview", preview(message.getContent()))
+                            .set("lastMessageSenderId", message.getSenderId()));
+        });
+        updates.execute();
+    }
+
+    private static String preview(String content) {
+        if (content == null || content.length() <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, PREVIEW_LENGTH) + "...";
+    }
+}
@@ -5,57 +5,122 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.prediction.backend.dto.ConversationDTO;
 import com.prediction.backend.dto.DiseasePrediction;
+import com.prediction.backend.dto.SymptomSuggestionDTO;
 import com.prediction.backend.dto.request.SearchingRequest;
+import com.prediction.backend.dto.request.ReadReceiptRequest;
 import com.prediction.backend.dto.request.UpdateConversationRequest;
 import com.prediction.backend.dto.response.BotResponse;
 import com.prediction.backend.dto.response.BotResponseDetail;
+import com.prediction.backend.dto.response.ChatHistoryPageResponse;
+import com.prediction.backend.dto.response.InboxItemResponse;
+import com.prediction.backend.dto.response.ReadReceiptResponse;
 import com.prediction.backend.dto.response.PredictionResponse;
+import com.prediction.backend.dto.response.RankedDiseaseResponse;
+import com.prediction.backend.dto.response.RankedSearchingResponse;
 import com.prediction.backend.dto.response.SearchingResponse;
 import com.prediction.backend.exceptions.AppException;
 import com.prediction.backend.exceptions.ErrorCode;
 import com.prediction.backend.models.Conversation;
+import com.prediction.backend.models.ConversationState;
 import com.prediction.backend.models.Disease;
+import com.prediction.backend.models.ReadWatermark;
 import com.prediction.backend.models.Role;
 import com.prediction.backend.models.User;
 import com.prediction.backend.repositories.UserRepository;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import com.prediction.backend.models.ChatMessage;
 import com.prediction.backend.services.ChatBotService;
 import com.prediction.backend.services.ChatService;
+import com.prediction.backend.services.ConversationStateStore;
 import com.prediction.backend.services.PredictionService;
 import com.prediction.backend.services.SearchingService;
+import com.prediction.backend.services.SymptomSuggestionService;
 import com.prediction.backend.repositories.ChatMessageRepository;
 import com.prediction.backend.repositories.ConversationRepository;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Map;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class ChatServiceImpl implements ChatService {
 
     private final ChatMessageRepository messageRepository;
     private final ConversationRepository conversationRepository;
     private final UserRepository userRepository;
-    private final Map<String, List<String>> userCollectedData = new HashMap<>();
-    private final Map<String, ConversationDTO> userConversations = new HashMap<>();
+    private final ConversationStateStore conversationStateStore;
 
     private final ChatBotService chatBotService;
     private final PredictionService predictionService;
     private final SearchingService searchingService;
+    private final SymptomSuggestionService symptomSuggestionService;
+    private final ChatMessageWriteBehind messageWriter;
+
+    private static final int RANKED_SEARCH_TOP_K = 3;
+    private static final int FOLLOW_UP_SUGGESTIONS = 3;
+    // Số lần đếm lại số tin chưa đọc khi bộ ghi tin nhắn cập nhật conversation trong lúc đếm
+    private static final int UNREAD_RECOUNT_ATTEMPTS = 3;
+
+    // Điểm tối thiểu để chấp nhận kết quả tìm kiếm xếp hạng (khớp một phần)
+    @Value("${search.ranked.min-score:0.6}")
+    private double rankedMinScore;
+
+    // Thời gian chờ tối đa của từng bước trong pipeline chatbot
+    @Value("${chatbot.timeout.chatbot:30s}")
+    private Duration chatbotTimeout;
+
+    @Value("${chatbot.timeout.search:5s}")
+    private Duration searchTimeout;
+
+    @Value("${chatbot.timeout.prediction:15s}")
+    private Duration predictionTimeout;
+
+    // Số message tối đa của một trang lịch sử chat
+    @Value("${chat.history.max-page-size:200}")
+    private int historyMaxPageSize;
+
+    // Số conversation tối đa của một trang inbox
+    @Value("${chat.inbox.max-page-size:100}")
+    private int inboxMaxPageSize;
+
+    /**
+     * Creates the chat history and inbox indexes once the application has
+     * started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            messageRepository.ensureIndexes();
+            conversationRepository.ensureIndexes();
+        } catch (Exception e) {
+            log.warn("Could not create chat indexes: {}", e.getMessage());
+        }
+    }
 
     @Override
     public Conversation startConversation(String senderId, String receiverId, String firstMessage) {
@@ -98,16 +163,10 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public ChatMessage sendMessage(ChatMessage message) {
-        Optional<Conversation> conversationOpt = conversationRepository.findById(message.getConversationId());
-        if (conversationOpt.isPresent()) {
-            Conversation conversation = conversationOpt.get();
-            conversation.setLastMessageTime(Instant.now());
-            conversationRepository.save(conversation);
-        }
-
         message.setTimestamp(Instant.now());
         message.setRead(false);
-        return messageRepository.save(message);
+        // Ghi xuống MongoDB ở nền (kèm lastMessageTime của conversation), trả về ngay để broadcast
+        return messageWriter.enqueue(message);
     }
 
     @Override
@@ -115,11 +174,135 @@ public class ChatServiceImpl implements ChatService {
         return messageRepository.findByConversationIdOrderByTimestampAsc(conversationId);
     }
 
+    @Override
+    public ChatHistoryPageResponse getChatHistoryPage(String conversationId, String before, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, historyMaxPageSize));
+        Instant beforeTime = null;
+        String beforeId = null;
+        if (before != null && !before.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(before), StandardCharsets.UTF_8);
+                int separator = decoded.indexOf(':');
+                beforeTime = Instant.ofEpochMilli(Long.parseLong(decoded.substring(0, separator)));
+                beforeId = decoded.substring(separator + 1);
+            } catch (RuntimeException e) {
+                throw new AppException(ErrorCode.INVALID_HISTORY_CURSOR);
+            }
+        }
+
+        // Lấy thêm một message để biết còn trang cũ hơn hay không
+        List<ChatMessage> newestFirst = new ArrayList<>(
+                messageRepository.findBefore(conversationId, beforeTime, beforeId, pageSize + 1));
+        boolean hasMore = newestFirst.size() > pageSize;
+        if (hasMore) {
+            newestFirst.remove(pageSize);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            ChatMessage oldest = newestFirst.get(newestFirst.size() - 1);
+            String position = oldest.getTimestamp().toEpochMilli() + ":" + oldest.getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+        Collections.reverse(newestFirst);
+        return ChatHistoryPageResponse.builder()
+                .messages(newestFirst)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Override
     public List<Conversation> getUserConversations(String userId) {
         return conversationRepository.findByParticipantIdsContaining(userId);
     }
 
+    @Override
+    public List<InboxItemResponse> getInbox(String userId, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, inboxMaxPageSize)));
+        return conversationRepository.findInbox(userId, pageRequest).stream()
+                .map(conversation -> InboxItemResponse.builder()
+                        .conversationId(conversation.getConversationId())
+                        .title(conversation.getTitle())
+                        .participantIds(conversation.getParticipantIds())
+                        .lastMessageTime(conversation.getLastMessageTime())
+                        .lastMessagePreview(conversation.getLastMessagePreview())
+                        .lastMessageSenderId(conversation.getLastMessageSenderId())
+                        .unreadCount(conversation.getUnreadCounts() != null
+                                ? conversation.getUnreadCounts().getOrDefault(userId, 0)
+                                : 0)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public ReadReceiptResponse markRead(ReadReceiptRequest request) {
+        Conversation conv = conversationRepository.findById(request.getConversationId())
+                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND));
+        if (conv.getParticipantIds() == null || !conv.getParticipantIds().contains(request.getUserId())) {
+            throw new AppException(ErrorCode.USER_NOT_IN_CONVERSATION);
+        }
+        Instant now = Instant.now();
+        Instant readUpTo = request.getTimestamp() != null && request.getTimestamp().isBefore(now)
+                ? request.getTimestamp()
+                : now;
+        String messageId = request.getMessageId() != null ? request.getMessageId() : "";
+        ReadWatermark watermark = new ReadWatermark(messageId, readUpTo);
+
+        // Đọc đến tin nhắn mới nhất: dời watermark và xóa số chưa đọc trong cùng một update, O(1)
+        if (conversationRepository.markAllRead(conv.getConversationId(), request.getUserId(), watermark)) {
+            return ReadReceiptResponse.builder()
+                    .conversationId(conv.getConversationId())
+                    .userId(request.getUserId())
+                    .messageId(watermark.getMessageId())
+                    .readUpTo(watermark.getTimestamp())
+                    .unreadCount(0)
+                    .build();
+        }
+        if (!conversationRepository.advanceReadWatermark(conv.getConversationId(), request.getUserId(), watermark)) {
+            // Watermark hiện tại đã ở sau receipt này, giữ nguyên
+            ReadWatermark current = conv.getReadWatermarks() != null
+                    ? conv.getReadWatermarks().get(request.getUserId())
+                    : null;
+            if (current != null) {
+                watermark = current;
+            }
+        }
+        // Đọc đến giữa chừng: đếm lại các tin đến lastMessageTime, chỉ ghi nếu bộ ghi chưa $inc thêm trong lúc đếm
+        long unread = 0;
+        for (int attempt = 0; attempt < UNREAD_RECOUNT_ATTEMPTS; attempt++) {
+            Instant lastMessageTime = conv.getLastMessageTime();
+            unread = messageRepository.countAfter(conv.getConversationId(), watermark.getTimestamp(),
+                    watermark.getMessageId().isEmpty() ? null : watermark.getMessageId(), lastMessageTime,
+                    request.getUserId());
+            if (conversationRepository.setUnreadCount(conv.getConversationId(), request.getUserId(), unread,
+                    lastMessageTime)) {
+                break;
+            }
+            conv = getConversationById(conv.getConversationId());
+        }
+
+        return ReadReceiptResponse.builder()
+                .conversationId(conv.getConversationId())
+                .userId(request.getUserId())
+                .messageId(watermark.getMessageId())
+                .readUpTo(watermark.getTimestamp())
+                .unreadCount((int) unread)
+                .build();
+    }
+
+    @Override
+    public ReadReceiptResponse markConversationRead(String conversationId, String userId) {
+        Conversation conv = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND));
+        return markRead(ReadReceiptRequest.builder()
+                .conversationId(conversationId)
+                .userId(userId)
+                .messageId(conv.getLastMessageId())
+                .timestamp(conv.getLastMessageTime())
+                .build());
+    }
+
     @Override
     public Conversation getConversationById(String conversationId) {
         return conversationRepository.findById(conversationId)
@@ -128,11 +311,9 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public void addUserToConversation(String conversationId, String userId) {
-        Conversation conv = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND));
-        if (!conv.getParticipantIds().contains(userId)) {
-            conv.getParticipantIds().add(userId);
-            conversationRepository.save(conv);
+        // Cập nhật riêng participantIds để không ghi đè các trường inbox do bộ ghi tin nhắn cập nhật
+        if (!conversationRepository.addParticipant(conversationId, userId)) {
+            throw new AppException(ErrorCode.CONVERSATION_NOT_FOUND);
         }
     }
 
@@ -163,170 +344,394 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public void removeUserFromConversation(String conversationId, String userId) {
-        Conversation conv = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND));
-
-        if (conv.getParticipantIds().contains(userId)) {
-            conv.getParticipantIds().remove(userId);
-            conversationRepository.save(conv);
-        } else {
-            throw new AppException(ErrorCode.USER_NOT_IN_CONVERSATION);
+        if (!conversationRepository.removeParticipant(conversationId, userId)) {
+            throw new AppException(conversationRepository.existsById(conversationId)
+                    ? ErrorCode.USER_NOT_IN_CONVERSATION
+                    : ErrorCode.CONVERSATION_NOT_FOUND);
         }
     }
 
     @Override
-    public BotResponseDetail handleData(String userMessage, String conversationId, int ageProvided,
+    public Mono<BotResponseDetail> handleData(String userMessage, String conversationId, int ageProvided,
             String genderProvided,
             String underlyingDisease) {
-        ConversationDTO conversationDTO = userConversations.computeIfAbsent(conversationId,
-                id -> new ConversationDTO());
-        AtomicBoolean isNeededDoctor = new AtomicBoolean(false);
-        List<String> collectedData = userCollectedData.computeIfAbsent(conversationId, id -> new ArrayList<>());
-        userMessage += "\nUser detail: age: " + ageProvided + " gender: " + genderProvided + " underlying_disease"
-                + underlyingDisease;
-        try {
-            // Gọi model chat để trả lời
-            String reply = chatBotService.ask(userMessage, conversationDTO, conversationId).block(); // cần viết hàm
-                                                                                                     // đồng bộ
-            String jsonReply = null;
-            String mainReply = null;
-            collectedData.add("User: " + userMessage + '\n');
-            collectedData.add("Bot: " + reply + '\n');
-
-            if (ConversationDTO.isJsonValid(reply)) {
-                Optional<String> extractedJson = ConversationDTO.extractJsonFromText(reply);
-                if (extractedJson.isPresent()) {
-                    jsonReply = extractedJson.get();
-                }
-                System.out.println("------------" + jsonReply);
-                SearchingRequest searchReq = new SearchingRequest();
-                searchReq.setSymptomNames(ConversationDTO.extractSymptoms(jsonReply));
-
-                SearchingResponse searchRep = searchingService.search(searchReq);
-
-                if (searchRep != null && searchRep.getDiseases() != null && !searchRep.getDiseases().isEmpty()) {
-                    List<Disease> diseases = searchRep.getDiseases();
-                    String result = diseases.stream()
-                            .map(d -> String.format(
-                                    "- Tên (VN): %s\n  Tên (EN): %s\n  Mô tả (VN): %s\n  Mô tả (EN): %s",
-                                    d.getNameVn() != null ? d.getNameVn() : "(không có)",
-                                    d.getNameEn(),
-                                    d.getDescriptionVn() != null ? d.getDescriptionVn() : "(không có)",
-                                    d.getDescriptionEn() != null ? d.getDescriptionEn() : "(không có)"))
-                            .collect(Collectors.joining("\n\n"));
-
-                    reset(conversationId);
-                    return BotResponseDetail.builder()
-                            .data("🔍 Đã tìm thấy bệnh từ hệ thống:\n\n" + result)
-                            .isNeededDoctor(false)
-                            .build();
-                }
+        String userDetail = userDetail(ageProvided, genderProvided, underlyingDisease);
+
+        // Gọi model chat để trả lời, không giữ luồng xử lý trong lúc chờ
+        return loadState(conversationId).flatMap(state -> {
+            state.getConversation().setUserDetail(userDetail);
+            return handleReply(chatBotService.ask(userMessage, state.getConversation(), conversationId),
+                    userMessage, state);
+        });
+    }
+
+    @Override
+    public Mono<BotResponseDetail> handleDataStreaming(String userMessage, String conversationId, int ageProvided,
+            String genderProvided, String underlyingDisease, Consumer<String> onPartialReply) {
+        String userDetail = userDetail(ageProvided, genderProvided, underlyingDisease);
+
+        return loadState(conversationId).flatMap(state -> {
+            state.getConversation().setUserDetail(userDetail);
+            StringBuilder assembled = new StringBuilder();
+            AtomicInteger forwarded = new AtomicInteger();
+            AtomicBoolean blocked = new AtomicBoolean(false);
+            Mono<String> reply = chatBotService.askStream(userMessage, state.getConversation(), conversationId)
+                    .doOnNext(chunk -> {
+                        assembled.append(chunk);
+                        forwardUserText(assembled, forwarded, blocked, false, onPartialReply);
+                    })
+                    .doOnComplete(() -> forwardUserText(assembled, forwarded, blocked, true, onPartialReply))
+                    .then(Mono.fromSupplier(assembled::toString));
+            return handleReply(reply, userMessage, state);
+        });
+    }
 
-                // Nếu không tìm được trong hệ thống, chuyển sang AI model
-                JsonObject obj = JsonParser.parseString(jsonReply).getAsJsonObject();
-                // JsonObject metadata = obj.getAsJsonObject("metadata");
+    /**
+     * Loads the chatbot state of a conversation off the request thread, since
+     * the store may be backed by the database.
+     */
+    private Mono<ConversationState> loadState(String conversationId) {
+        return Mono.fromCallable(() -> conversationStateStore.load(conversationId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
 
-                int age = obj.get("age").getAsInt();
-                String gender = obj.get("gender").getAsString();
-                String region = obj.get("region").getAsString();
-                // LocalDateTime time = LocalDateTime.now();
-                LocalDateTime time = LocalDateTime.parse(obj.get("symptomStartTime").getAsString());
+    /**
+     * Stores the state after a bot turn, or removes it if the bot has reached a
+     * conclusion.
+     */
+    private Mono<Void> persistState(ConversationState state) {
+        return Mono.<Void>fromRunnable(() -> {
+            if (state.isEnded()) {
+                conversationStateStore.remove(state.getConversationId());
+            } else {
+                conversationStateStore.save(state);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
 
-                List<String> symptoms = new ArrayList<>();
-                for (JsonElement el : obj.getAsJsonArray("symptoms")) {
-                    symptoms.add(el.getAsString());
-                }
+    // Gửi một lần qua chỉ dẫn hệ thống thay vì nối vào mỗi tin nhắn
+    private static String userDetail(int ageProvided, String genderProvided, String underlyingDisease) {
+        return "age: " + ageProvided + " gender: " + genderProvided + " underlying_disease: " + underlyingDisease;
+    }
+
+    /**
+     * Forwards the part of the assembled reply that is meant for the user and
+     * not yet forwarded. The collected-data JSON is not: forwarding stops for
+     * good where it starts, wherever that is in the reply. While the reply is
+     * still streaming, a tail that could turn out to be the start of such a
+     * block is held back.
+     */
+    private static void forwardUserText(CharSequence assembled, AtomicInteger forwarded, AtomicBoolean blocked,
+            boolean complete, Consumer<String> onPartialReply) {
+        if (blocked.get()) {
+            return;
+        }
+        String text = assembled.toString();
+        int end = structuredBlockStart(text);
+        if (end >= 0) {
+            blocked.set(true);
+        } else {
+            end = complete ? text.length() : undecidedTailStart(text);
+        }
+        if (end > forwarded.get()) {
+            onPartialReply.accept(text.substring(forwarded.get(), end));
+            forwarded.set(end);
+        }
+    }
+
+    /**
+     * Index where the JSON block of the reply starts: a JSON object or a code
+     * fence anywhere, a reply that is a JSON array, or the "1" that precedes
+     * the JSON when a doctor is needed. -1 if there is none (yet).
+     */
+    private static int structuredBlockStart(String text) {
+        int start = nextNonWhitespace(text, 0);
+        if (start < 0) {
+            return -1;
+        }
+        if (text.charAt(start) == '[') {
+            return start;
+        }
+        if (text.charAt(start) == '1') {
+            int next = nextNonWhitespace(text, start + 1);
+            if (next >= 0 && (text.charAt(next) == '{' || text.startsWith("```", next))) {
+                return start;
+            }
+        }
+        int brace = text.indexOf('{');
+        int fence = text.indexOf("```");
+        if (brace < 0 || fence < 0) {
+            return Math.max(brace, fence);
+        }
+        return Math.min(brace, fence);
+    }
+
+    /**
+     * Index of the tail the next chunk could still turn into a JSON block: a
+     * leading "1" with nothing after it, or trailing backticks.
+     */
+    private static int undecidedTailStart(String text) {
+        int start = nextNonWhitespace(text, 0);
+        if (start >= 0 && text.charAt(start) == '1' && nextNonWhitespace(text, start + 1) < 0) {
+            return start;
+        }
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '`') {
+            end--;
+        }
+        return end;
+    }
 
-                List<String> riskFactors = new ArrayList<>();
-                if (obj.has("risk_factors")) {
-                    for (JsonElement el : obj.getAsJsonArray("risk_factors")) {
-                        riskFactors.add(el.getAsString());
+    private static int nextNonWhitespace(String text, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Runs the rest of the pipeline on the assembled chatbot reply, turning
+     * errors and timeouts into an error reply.
+     */
+    private Mono<BotResponseDetail> handleReply(Mono<String> reply, String message, ConversationState state) {
+        String conversationId = state.getConversationId();
+        return reply
+                .timeout(chatbotTimeout)
+                .flatMap(text -> handleReply(text, message, state))
+                .onErrorResume(e -> {
+                    log.error("Error handling chatbot message for conversation {}: {}", conversationId,
+                            e.toString());
+                    return Mono.just(BotResponseDetail.builder()
+                            .data("Đã xảy ra lỗi trong quá trình xử lý dữ liệu.")
+                            .isNeededDoctor(false)
+                            .build());
+                })
+                .flatMap(detail -> persistState(state).thenReturn(detail));
+    }
+
+    /**
+     * Handles the chatbot reply: a plain text reply is returned as is, a reply
+     * carrying the collected JSON is first matched against the local catalog and
+     * then sent to the prediction model.
+     */
+    private Mono<BotResponseDetail> handleReply(String reply, String userMessage, ConversationState state) {
+        List<String> collectedData = state.getCollectedData();
+        collectedData.add("User: " + userMessage + '\n');
+        collectedData.add("Bot: " + reply + '\n');
+
+        // Trường hợp không phải JSON hợp lệ
+        if (!ConversationDTO.isJsonValid(reply)) {
+            return Mono.just(BotResponseDetail.builder()
+                    .data(reply)
+                    .isNeededDoctor(false)
+                    .build());
+        }
+
+        String jsonReply = ConversationDTO.extractJsonFromText(reply).orElse(null);
+
+        // Tìm kiếm trong CSDL là thao tác chặn, chạy trên boundedElastic
+        return Mono.fromCallable(() -> {
+            SearchingRequest searchReq = new SearchingRequest();
+            searchReq.setSymptomNames(ConversationDTO.extractSymptoms(jsonReply));
+            return findLocalDiseases(searchReq);
+        })
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(searchTimeout)
+                .flatMap(localDiseases -> {
+                    if (!localDiseases.isEmpty()) {
+                        String result = localDiseases.stream()
+                                .map(d -> String.format(
+                                        "- Tên (VN): %s\n  Tên (EN): %s\n  Mô tả (VN): %s\n  Mô tả (EN): %s",
+                                        d.getNameVn() != null ? d.getNameVn() : "(không có)",
+                                        d.getNameEn(),
+                                        d.getDescriptionVn() != null ? d.getDescriptionVn() : "(không có)",
+                                        d.getDescriptionEn() != null ? d.getDescriptionEn() : "(không có)"))
+                                .collect(Collectors.joining("\n\n"));
+
+                        state.setEnded(true);
+                        return Mono.just(BotResponseDetail.builder()
+                                .data("🔍 Đã tìm thấy bệnh từ hệ thống:\n\n" + result)
+                                .isNeededDoctor(false)
+                                .build());
                     }
-                }
 
-                // Gọi mô hình dự đoán đồng bộ
-                PredictionResponse prs = predictionService.predictDisease(
-                        gender, age, region, time.toString(), symptoms, riskFactors, 5).block();
-
-                boolean isConfident = PredictionResponse.checkConfident(prs);
-                mainReply = ConversationDTO.removeJsonBlock(reply);
-                System.out.println(mainReply);
-                System.out.println(mainReply == "1");
-                if (mainReply.equals("1")) {
-                    isNeededDoctor.set(true);
-                    reset(conversationId);
-                    return BotResponseDetail.builder()
-                            .data("We will call doctor for you")
-                            .isNeededDoctor(isNeededDoctor.get())
-                            .log(jsonReply)
-                            .build();
-                }
-                if (isConfident) {
-                    List<DiseasePrediction> diseases = prs.getTop_predictions();
-                    String result = diseases.stream()
-                            .map(DiseasePrediction::toString)
-                            .reduce((a, b) -> a + ", " + b)
-                            .orElse("No suitable solution");
-                    reset(conversationId);
-                    return BotResponseDetail.builder()
-                            .data("Predict: " + result)
-                            .isNeededDoctor(isNeededDoctor.get())
-                            .log(jsonReply)
-                            .build();
-                } else {
-                    // String prompt = "result of Disease model not true because Loss information of
-                    // Symptoms and Risk Factors," +
-                    // "so You should ask more question to collection information from user and
-                    // recommend call to doctor. If user responds or replies no more symptoms or
-                    // call doctor then return string 1 and the collected json.";
-                    // collectedData.add("External Disease Model: " + prompt);
-                    String recommend = "Please provide more information about your current condition so I can make an accurate diagnosis. Or you want to call Doctor";
-                    System.out.println(collectedData);
-                    return BotResponseDetail.builder()
-                            .data(ConversationDTO.removeJsonBlock(reply) + '\n' + recommend)
-                            .isNeededDoctor(isNeededDoctor.get())
-                            .build();
+                    // Nếu không tìm được trong hệ thống, chuyển sang AI model
+                    return predict(reply, jsonReply, state);
+                });
+    }
+
+    /**
+     * Sends the collected JSON to the prediction model and builds the reply from
+     * its result. When the chatbot answered "1", the user asked for a doctor:
+     * the conversation ends without calling the model, so neither a model
+     * failure nor the catalog fallback can hide the request.
+     */
+    private Mono<BotResponseDetail> predict(String reply, String jsonReply, ConversationState state) {
+        if (ConversationDTO.removeJsonBlock(reply).equals("1")) {
+            state.setEnded(true);
+            return Mono.just(BotResponseDetail.builder()
+                    .data("We will call doctor for you")
+                    .isNeededDoctor(true)
+                    .log(jsonReply)
+                    .build());
+        }
+        return Mono.defer(() -> {
+            JsonObject obj = JsonParser.parseString(jsonReply).getAsJsonObject();
+
+            int age = obj.get("age").getAsInt();
+            String gender = obj.get("gender").getAsString();
+            String region = obj.get("region").getAsString();
+            LocalDateTime time = LocalDateTime.parse(obj.get("symptomStartTime").getAsString());
+
+            List<String> symptoms = new ArrayList<>();
+            for (JsonElement el : obj.getAsJsonArray("symptoms")) {
+                symptoms.add(el.getAsString());
+            }
+
+            List<String> riskFactors = new ArrayList<>();
+            if (obj.has("risk_factors")) {
+                for (JsonElement el : obj.getAsJsonArray("risk_factors")) {
+                    riskFactors.add(el.getAsString());
                 }
             }
 
-            // Trường hợp không phải JSON hợp lệ
-            return BotResponseDetail.builder()
-                    .data(reply)
-                    .isNeededDoctor(isNeededDoctor.get())
-                    .build();
+            return predictionService.predictDisease(
+                    gender, age, region, time.toString(), symptoms, riskFactors, 5)
+                    .timeout(predictionTimeout)
+                    // Gợi ý triệu chứng có thể cần tra cứu danh mục nên chạy trên boundedElastic
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(prs -> predictionReply(prs, reply, jsonReply, symptoms, state))
+                    .onErrorResume(e -> catalogFallback(symptoms, e));
+        });
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * Builds the reply from the prediction model result.
+     */
+    private BotResponseDetail predictionReply(PredictionResponse prs, String reply, String jsonReply,
+            List<String> symptoms, ConversationState state) {
+        boolean isConfident = PredictionResponse.checkConfident(prs);
+        String mainReply = ConversationDTO.removeJsonBlock(reply);
+        if (isConfident) {
+            List<DiseasePrediction> diseases = prs.getTop_predictions();
+            String result = diseases.stream()
+                    .map(DiseasePrediction::toString)
+                    .reduce((a, b) -> a + ", " + b)
+                    .orElse("No suitable solution");
+            state.setEnded(true);
             return BotResponseDetail.builder()
-                    .data("Đã xảy ra lỗi trong quá trình xử lý dữ liệu.")
+                    .data("Predict: " + result)
                     .isNeededDoctor(false)
+                    .log(jsonReply)
                     .build();
         }
+        String recommend = "Please provide more information about your current condition so I can make an accurate diagnosis. Or you want to call Doctor";
+        if (prs.getUnknown_symptoms() != null && !prs.getUnknown_symptoms().isEmpty()) {
+            // Báo cho người dùng các triệu chứng mô hình không nhận diện được
+            recommend += "\nThese symptoms were not recognised: " + String.join(", ", prs.getUnknown_symptoms());
+        }
+        // Hỏi tiếp về các triệu chứng liên quan theo luật kết hợp, không cần thêm một lượt hỏi Gemini
+        List<SymptomSuggestionDTO> related = symptomSuggestionService.suggest(symptoms, FOLLOW_UP_SUGGESTIONS,
+                SymptomSuggestionService.Ranking.CONFIDENCE);
+        if (!related.isEmpty()) {
+            recommend += "\nDo you also have any of these symptoms: " + related.stream()
+                    .map(SymptomSuggestionDTO::getSymptom)
+                    .collect(Collectors.joining(", ")) + "?";
+        }
+        return BotResponseDetail.builder()
+                .data(mainReply + '\n' + recommend)
+                .isNeededDoctor(false)
+                .build();
+    }
+
+    /**
+     * Answers from the local catalog when the prediction model is unavailable
+     * (failed, timed out, or rejected by its circuit breaker or bulkhead): the
+     * best ranked partial matches are returned regardless of their score. The
+     * conversation is kept open so the user can try again later.
+     */
+    private Mono<BotResponseDetail> catalogFallback(List<String> symptoms, Throwable cause) {
+        log.warn("Prediction model unavailable, answering from the local catalog: {}", cause.toString());
+        return Mono.fromCallable(() -> {
+            SearchingRequest searchReq = new SearchingRequest();
+            searchReq.setSymptomNames(symptoms);
+            searchReq.setSummaryOnly(true);
+            return searchingService.searchRanked(searchReq, RANKED_SEARCH_TOP_K);
+        })
+                .subscribeOn(Schedulers.boundedElastic())
+                .timeout(searchTimeout)
+                .flatMap(ranked -> {
+                    if (ranked == null || ranked.getDiseases() == null || ranked.getDiseases().isEmpty()) {
+                        return Mono.<BotResponseDetail>error(cause);
+                    }
+                    String result = ranked.getDiseases().stream()
+                            .map(r -> String.format("- %s (%s): %.0f%%",
+                                    r.getDisease().getNameVn() != null ? r.getDisease().getNameVn() : "(không có)",
+                                    r.getDisease().getNameEn(),
+                                    r.getScore() * 100))
+                            .collect(Collectors.joining("\n"));
+                    return Mono.just(BotResponseDetail.builder()
+                            .data("⚠️ Hệ thống dự đoán đang tạm thời không khả dụng. Các bệnh gần nhất trong hệ thống:\n\n"
+                                    + result)
+                            .isNeededDoctor(false)
+                            .build());
+                });
+    }
+
+    /**
+     * Looks for diseases in the local catalog before falling back to the AI model.
+     * Diseases containing all symptoms are preferred; otherwise the ranked partial
+     * match is used, keeping only candidates whose score reaches the configured
+     * minimum.
+     */
+    private List<Disease> findLocalDiseases(SearchingRequest searchReq) {
+        try {
+            SearchingResponse searchRep = searchingService.search(searchReq);
+            if (searchRep != null && searchRep.getDiseases() != null && !searchRep.getDiseases().isEmpty()) {
+                return searchRep.getDiseases();
+            }
+        } catch (AppException e) {
+            if (e.getErrorCode() != ErrorCode.NO_DISEASES_FOUND) {
+                throw e;
+            }
+        }
+
+        RankedSearchingResponse ranked = searchingService.searchRanked(searchReq, RANKED_SEARCH_TOP_K);
+        if (ranked == null || ranked.getDiseases() == null) {
+            return List.of();
+        }
+        return ranked.getDiseases().stream()
+                .filter(r -> r.getScore() >= rankedMinScore)
+                .map(RankedDiseaseResponse::getDisease)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void reset(String conversationId) {
-        userCollectedData.remove(conversationId);
-        userConversations.remove(conversationId);
+        conversationStateStore.remove(conversationId);
     }
 
     @Override
     public void deleteConversation(String conversationId) {
         Conversation conv = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND));
-        // Xoá tất cả message thuộc conversation này (nếu cần)
-        messageRepository.deleteAll(messageRepository.findByConversationIdOrderByTimestampAsc(conversationId));
+        // Xoá tất cả message thuộc conversation này ngay trên MongoDB
+        messageRepository.deleteByConversationId(conversationId);
         conversationRepository.delete(conv);
     }
 
     @Override
     public Conversation updateConversation(String conversationId, UpdateConversationRequest request) {
-        Conversation conv = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new AppException(ErrorCode.CONVERSATION_NOT_FOUND));
-        if (request.getTitle() != null) {
-            conv.setTitle(request.getTitle());
+        if (request.getTitle() == null) {
+            return getConversationById(conversationId);
+        }
+        // Thêm cập nhật các trường khác nếu cần, cũng bằng update riêng từng trường
+        Conversation conv = conversationRepository.updateTitle(conversationId, request.getTitle());
+        if (conv == null) {
+            throw new AppException(ErrorCode.CONVERSATION_NOT_FOUND);
         }
-        // Thêm cập nhật các trường khác nếu cần
-        return conversationRepository.save(conv);
+        return conv;
     }
 }
\ No newline at end of file
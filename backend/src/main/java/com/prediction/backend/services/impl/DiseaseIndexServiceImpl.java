@@ -0,0 +1,358 @@
+package com.prediction.backend.services.impl;
+
+import com.prediction.backend.dto.DiseaseScoreDTO;
+import com.prediction.backend.models.DiseaseSymptom;
+import com.prediction.backend.repositories.DiseaseSymptomRepository;
+import com.prediction.backend.services.DiseaseIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of the DiseaseIndexService interface.
+ * Keeps, for every symptom, a sorted posting list of disease ordinals and
+ * association weights, so that "all symptoms" matching becomes an in-memory
+ * posting-list intersection and ranked matching a single pass over the lists.
+ * Posting arrays are never mutated once published; writers replace them, so
+ * readers can run without locking.
+ */
+@Service
+@Slf4j
+public class DiseaseIndexServiceImpl implements DiseaseIndexService {
+
+    private final DiseaseSymptomRepository diseaseSymptomRepository;
+
+    private volatile IndexState state = new IndexState();
+    private volatile boolean ready = false;
+
+    /**
+     * Constructs a DiseaseIndexServiceImpl with the required repository.
+     *
+     * @param diseaseSymptomRepository Repository for accessing disease-symptom
+     *                                 relationship data.
+     */
+    @Autowired
+    public DiseaseIndexServiceImpl(DiseaseSymptomRepository diseaseSymptomRepository) {
+        this.diseaseSymptomRepository = diseaseSymptomRepository;
+    }
+
+    /**
+     * Loads the index once the application has started.
+     * A failure is logged and leaves the index not ready, so callers fall back to
+     * the database query.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Could not build disease index, searches will use the database: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        IndexState newState = new IndexState();
+        Map<String, LongList> lists = new HashMap<>();
+
+        for (DiseaseSymptom ds : diseaseSymptomRepository.findAll()) {
+            if (ds.getId() == null || ds.getDiseaseId() == null || ds.getSymptomId() == null) {
+                continue;
+            }
+            int ordinal = newState.ordinalOf(ds.getDiseaseId());
+            // Pack (ordinal, weight) so a plain sort orders the posting by ordinal
+            long packed = ((long) ordinal << 32) | effectiveWeight(ds.getWeight());
+            lists.computeIfAbsent(ds.getSymptomId(), k -> new LongList()).add(packed);
+        }
+        lists.forEach((symptomId, list) -> {
+            Posting posting = list.toPosting();
+            newState.postings.put(symptomId, posting);
+            for (int i = 0; i < posting.diseases.length; i++) {
+                newState.totals[posting.diseases[i]] += posting.weights[i];
+            }
+        });
+
+        this.state = newState;
+        this.ready = true;
+        log.info("Disease index built: {} symptoms, {} diseases in {} ms",
+                newState.postings.size(), newState.size, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<String> findDiseasesWithAllSymptoms(Collection<String> symptomIds) {
+        if (symptomIds == null || symptomIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        IndexState current = this.state;
+
+        List<int[]> postings = new ArrayList<>();
+        for (String symptomId : new LinkedHashSet<>(symptomIds)) {
+            Posting posting = current.postings.get(symptomId);
+            if (posting == null || posting.diseases.length == 0) {
+                return Collections.emptyList();
+            }
+            postings.add(posting.diseases);
+        }
+        // Intersect starting from the shortest list to keep the candidate set small
+        postings.sort(Comparator.comparingInt(p -> p.length));
+
+        int[] result = postings.get(0);
+        for (int i = 1; i < postings.size() && result.length > 0; i++) {
+            result = intersect(result, postings.get(i));
+        }
+
+        List<String> diseaseIds = new ArrayList<>(result.length);
+        for (int ordinal : result) {
+            String diseaseId = current.idOf(ordinal);
+            if (diseaseId != null) {
+                diseaseIds.add(diseaseId);
+            }
+        }
+        return diseaseIds;
+    }
+
+    @Override
+    public List<DiseaseScoreDTO> rankDiseases(Collection<String> symptomIds, int topK) {
+        if (symptomIds == null || symptomIds.isEmpty() || topK <= 0) {
+            return Collections.emptyList();
+        }
+        IndexState current = this.state;
+        int[] totals = current.totals;
+        int[] matchedWeight = new int[totals.length];
+        int[] matchedCount = new int[totals.length];
+        int[] candidates = new int[Math.min(totals.length, 64)];
+        int candidateCount = 0;
+
+        // Accumulate matched weight per disease over the posting lists (term-at-a-time)
+        for (String symptomId : new LinkedHashSet<>(symptomIds)) {
+            Posting posting = current.postings.get(symptomId);
+            if (posting == null) {
+                continue;
+            }
+            for (int i = 0; i < posting.diseases.length; i++) {
+                int ordinal = posting.diseases[i];
+                if (ordinal >= matchedCount.length) {
+                    continue;
+                }
+                if (matchedCount[ordinal]++ == 0) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = ordinal;
+                }
+                matchedWeight[ordinal] += posting.weights[i];
+            }
+        }
+
+        // Keep only the best topK candidates in a bounded min-heap
+        Comparator<DiseaseScoreDTO> byScore = Comparator.comparingDouble(DiseaseScoreDTO::getScore)
+                .thenComparingLong(DiseaseScoreDTO::getMatchCount);
+        PriorityQueue<DiseaseScoreDTO> heap = new PriorityQueue<>(Math.min(topK, Math.max(candidateCount, 1)) + 1,
+                byScore);
+        for (int c = 0; c < candidateCount; c++) {
+            int ordinal = candidates[c];
+            String diseaseId = current.idOf(ordinal);
+            if (diseaseId == null || totals[ordinal] <= 0) {
+                continue;
+            }
+            double score = (double) matchedWeight[ordinal] / totals[ordinal];
+            if (heap.size() < topK) {
+                heap.add(new DiseaseScoreDTO(diseaseId, score, (long) matchedCount[ordinal]));
+            } else if (score > heap.peek().getScore()
+                    || (score == heap.peek().getScore() && matchedCount[ordinal] > heap.peek().getMatchCount())) {
+                heap.poll();
+                heap.add(new DiseaseScoreDTO(diseaseId, score, (long) matchedCount[ordinal]));
+            }
+        }
+
+        List<DiseaseScoreDTO> ranked = new ArrayList<>(heap);
+        ranked.sort(byScore.reversed());
+        return ranked;
+    }
+
+    @Override
+    public synchronized void addDiseaseSymptom(String diseaseId, String symptomId, Integer weight) {
+        if (diseaseId == null || symptomId == null) {
+            return;
+        }
+        IndexState current = this.state;
+        int ordinal = current.ordinalOf(diseaseId);
+        int newWeight = effectiveWeight(weight);
+        Posting posting = current.postings.getOrDefault(symptomId, Posting.EMPTY);
+        int pos = Arrays.binarySearch(posting.diseases, ordinal);
+        if (pos >= 0) {
+            // The row was overwritten, so replace its weight in the posting and the total
+            int[] weights = posting.weights.clone();
+            current.totals[ordinal] += newWeight - weights[pos];
+            weights[pos] = newWeight;
+            current.postings.put(symptomId, new Posting(posting.diseases, weights));
+            return;
+        }
+        int insertAt = -pos - 1;
+        int length = posting.diseases.length;
+        int[] diseases = new int[length + 1];
+        int[] weights = new int[length + 1];
+        System.arraycopy(posting.diseases, 0, diseases, 0, insertAt);
+        System.arraycopy(posting.weights, 0, weights, 0, insertAt);
+        diseases[insertAt] = ordinal;
+        weights[insertAt] = newWeight;
+        System.arraycopy(posting.diseases, insertAt, diseases, insertAt + 1, length - insertAt);
+        System.arraycopy(posting.weights, insertAt, weights, insertAt + 1, length - insertAt);
+        current.totals[ordinal] += newWeight;
+        current.postings.put(symptomId, new Posting(diseases, weights));
+    }
+
+    @Override
+    public synchronized void removeDisease(String diseaseId) {
+        IndexState current = this.state;
+        Integer ordinal = current.ordinals.remove(diseaseId);
+        if (ordinal == null) {
+            return;
+        }
+        current.ids[ordinal] = null;
+        current.totals[ordinal] = 0;
+        for (Map.Entry<String, Posting> entry : current.postings.entrySet()) {
+            Posting posting = entry.getValue();
+            int pos = Arrays.binarySearch(posting.diseases, ordinal);
+            if (pos >= 0) {
+                int length = posting.diseases.length;
+                int[] diseases = new int[length - 1];
+                int[] weights = new int[length - 1];
+                System.arraycopy(posting.diseases, 0, diseases, 0, pos);
+                System.arraycopy(posting.weights, 0, weights, 0, pos);
+                System.arraycopy(posting.diseases, pos + 1, diseases, pos, length - pos - 1);
+                System.arraycopy(posting.weights, pos + 1, weights, pos, length - pos - 1);
+                entry.setValue(new Posting(diseases, weights));
+            }
+        }
+    }
+
+    /**
+     * Weight used for ranking. Associations saved without a weight (null or 0,
+     * e.g. from doctor diagnoses) count as 1 so they still contribute to a match.
+     */
+    private static int effectiveWeight(Integer weight) {
+        return weight == null || weight <= 0 ? 1 : weight;
+    }
+
+    /**
+     * Intersects two sorted posting lists, galloping through the longer one.
+     */
+    private static int[] intersect(int[] shorter, int[] longer) {
+        int[] out = new int[Math.min(shorter.length, longer.length)];
+        int n = 0;
+        int from = 0;
+        for (int value : shorter) {
+            int pos = Arrays.binarySearch(longer, from, longer.length, value);
+            if (pos >= 0) {
+                out[n++] = value;
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+            if (from >= longer.length) {
+                break;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Immutable posting list: disease ordinals in ascending order with the
+     * association weight at the same position.
+     */
+    private static final class Posting {
+        static final Posting EMPTY = new Posting(new int[0], new int[0]);
+
+        final int[] diseases;
+        final int[] weights;
+
+        Posting(int[] diseases, int[] weights) {
+            this.diseases = diseases;
+            this.weights = weights;
+        }
+    }
+
+    /**
+     * Mutable index state. Only modified while holding the service lock.
+     */
+    private static final class IndexState {
+        final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+        final Map<String, Posting> postings = new ConcurrentHashMap<>();
+        volatile String[] ids = new String[64];
+        volatile int[] totals = new int[64];
+        volatile int size = 0;
+
+        int ordinalOf(String diseaseId) {
+            Integer ordinal = ordinals.get(diseaseId);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                totals = Arrays.copyOf(totals, totals.length * 2);
+            }
+            ids[size] = diseaseId;
+            ordinals.put(diseaseId, size);
+            return size++;
+        }
+
+        String idOf(int ordinal) {
+            String[] snapshot = ids;
+            return ordinal < snapshot.length ? snapshot[ordinal] : null;
+        }
+    }
+
+    /**
+     * Minimal growable list of primitive longs used while building the index.
+     */
+    private static final class LongList {
+        private long[] values = new long[8];
+        private int size = 0;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        Posting toPosting() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int[] diseases = new int[sorted.length];
+            int[] weights = new int[sorted.length];
+            int n = 0;
+            for (long packed : sorted) {
+                int ordinal = (int) (packed >>> 32);
+                if (n > 0 && diseases[n - 1] == ordinal) {
+                    continue;
+                }
+                diseases[n] = ordinal;
+                weights[n] = (int) packed;
+                n++;
+            }
+            return new Posting(Arrays.copyOf(diseases, n), Arrays.copyOf(weights, n));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.prediction.backend.services.impl;
 
+import com.prediction.backend.config.CacheConfig;
 import com.prediction.backend.dto.request.DiseaseRequest;
 import com.prediction.backend.dto.response.DiseaseResponse;
 import com.prediction.backend.exceptions.AppException;
@@ -8,9 +9,12 @@ import com.prediction.backend.models.Disease;
 import com.prediction.backend.models.Symptom;
 import com.prediction.backend.repositories.DiseaseRepository;
 import com.prediction.backend.repositories.DiseaseSymptomRepository;
+import com.prediction.backend.services.CatalogCacheService;
+import com.prediction.backend.services.DiseaseIndexService;
 import com.prediction.backend.services.DiseaseService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -31,21 +35,28 @@ public class DiseaseServiceImpl implements DiseaseService {
 
     private final DiseaseRepository diseaseRepository;
     private final DiseaseSymptomRepository diseaseSymptomRepository;
+    private final DiseaseIndexService diseaseIndexService;
+    private final CatalogCacheService catalogCacheService;
 
     /**
      * Constructs a DiseaseServiceImpl with the required repositories.
      */
     @Autowired
     public DiseaseServiceImpl(DiseaseRepository diseaseRepository,
-            DiseaseSymptomRepository diseaseSymptomRepository) {
+            DiseaseSymptomRepository diseaseSymptomRepository,
+            DiseaseIndexService diseaseIndexService,
+            CatalogCacheService catalogCacheService) {
         this.diseaseRepository = diseaseRepository;
         this.diseaseSymptomRepository = diseaseSymptomRepository;
+        this.diseaseIndexService = diseaseIndexService;
+        this.catalogCacheService = catalogCacheService;
     }
 
     /**
      * Retrieves all diseases from the database.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.DISEASE_LISTS, key = "'all'")
     public List<Disease> getAllDiseases() {
         return diseaseRepository.findAll();
     }
@@ -54,6 +65,7 @@ public class DiseaseServiceImpl implements DiseaseService {
      * Retrieves a disease by its unique identifier.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.DISEASES, key = "#diseaseId", unless = "#result == null")
     public Optional<Disease> getDiseaseById(String diseaseId) {
         return diseaseRepository.findById(diseaseId);
     }
@@ -62,6 +74,7 @@ public class DiseaseServiceImpl implements DiseaseService {
      * Get detailed information of a disease by ID, including symptoms
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.DISEASE_DETAILS, key = "#diseaseId")
     public DiseaseResponse getDiseaseDetailsById(String diseaseId) throws AppException {
         Disease disease = diseaseRepository.findById(diseaseId)
                 .orElseThrow(() -> new AppException(ErrorCode.DISEASE_NOT_FOUND));
@@ -102,6 +115,7 @@ public class DiseaseServiceImpl implements DiseaseService {
      * Retrieves diseases by their English name.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.DISEASE_LISTS, key = "'nameEn:' + #nameEn?.toLowerCase()")
     public List<Disease> getDiseasesByNameEn(String nameEn) {
         return diseaseRepository.findByNameEnIgnoreCase(nameEn);
     }
@@ -110,6 +124,7 @@ public class DiseaseServiceImpl implements DiseaseService {
      * Retrieves diseases by their Vietnamese name.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.DISEASE_LISTS, key = "'nameVn:' + #nameVn?.toLowerCase()")
     public List<Disease> getDiseasesByNameVn(String nameVn) {
         return diseaseRepository.findByNameVnIgnoreCase(nameVn);
     }
@@ -126,6 +141,7 @@ public class DiseaseServiceImpl implements DiseaseService {
      * Retrieves diseases by their severity level.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.DISEASE_LISTS, key = "'severity:' + #severity")
     public List<Disease> getDiseasesBySeverity(Disease.Severity severity) {
         return diseaseRepository.findBySeverity(severity);
     }
@@ -134,6 +150,7 @@ public class DiseaseServiceImpl implements DiseaseService {
      * Retrieves diseases by their specialization.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.DISEASE_LISTS, key = "'specialization:' + #specialization")
     public List<Disease> getDiseasesBySpecialization(String specialization) {
         return diseaseRepository.findBySpecialization(specialization);
     }
@@ -167,6 +184,7 @@ public class DiseaseServiceImpl implements DiseaseService {
 
             // Save to database
             Disease savedDisease = diseaseRepository.save(disease);
+            catalogCacheService.evictDisease(null, savedDisease);
 
             return DiseaseResponse.fromEntity(savedDisease);
 
@@ -204,6 +222,9 @@ public class DiseaseServiceImpl implements DiseaseService {
                 }
             }
 
+            // Giữ lại trạng thái cũ để xóa đúng các mục cache bị ảnh hưởng
+            Disease previousDisease = snapshot(existingDisease);
+
             // Update information
             existingDisease.setOriginalId(diseaseRequest.getOriginalId());
             existingDisease.setNameEn(diseaseRequest.getNameEn());
@@ -215,6 +236,7 @@ public class DiseaseServiceImpl implements DiseaseService {
 
             // Save to database
             Disease updatedDisease = diseaseRepository.save(existingDisease);
+            catalogCacheService.evictDisease(previousDisease, updatedDisease);
 
             return DiseaseResponse.fromEntity(updatedDisease);
 
@@ -232,19 +254,33 @@ public class DiseaseServiceImpl implements DiseaseService {
     @Override
     public void deleteDisease(String diseaseId) throws AppException {
         // Check if the disease exists
-        if (!diseaseRepository.existsById(diseaseId)) {
-            throw new AppException(ErrorCode.DISEASE_NOT_FOUND);
-        }
+        Disease disease = diseaseRepository.findById(diseaseId)
+                .orElseThrow(() -> new AppException(ErrorCode.DISEASE_NOT_FOUND));
 
         try {
             // Delete disease
             diseaseRepository.deleteById(diseaseId);
+            diseaseIndexService.removeDisease(diseaseId);
+            catalogCacheService.evictDisease(disease, null);
         } catch (Exception e) {
             log.error("Error deleting disease: ", e);
             throw new AppException(ErrorCode.DISEASE_PROCESSING_ERROR);
         }
     }
 
+    /**
+     * Copies the fields that cache keys are built from.
+     */
+    private static Disease snapshot(Disease disease) {
+        Disease copy = new Disease();
+        copy.setDiseaseId(disease.getDiseaseId());
+        copy.setNameEn(disease.getNameEn());
+        copy.setNameVn(disease.getNameVn());
+        copy.setSeverity(disease.getSeverity());
+        copy.setSpecialization(disease.getSpecialization());
+        return copy;
+    }
+
     @Override
     public Page<Disease> getDiseasesPaging(Pageable pageable) {
         return diseaseRepository.findAll(pageable);
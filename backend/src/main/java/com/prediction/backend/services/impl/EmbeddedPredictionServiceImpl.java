@@ -0,0 +1,165 @@
+package com.prediction.backend.services.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prediction.backend.dto.DiseasePrediction;
+import com.prediction.backend.dto.response.PredictionResponse;
+import com.prediction.backend.services.PredictionService;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * PredictionService implementation that evaluates the exported XGBoost model
+ * inside the JVM instead of calling the FastAPI service. Selected with
+ * prediction.engine=embedded.
+ * <p>
+ * The model is the symptom-only model of FastApi/predict2.py. Its pickled
+ * metadata cannot be read from Java, so FastApi/export_model_for_java.py
+ * exports the symptom list (the feature order) and the label encoder classes
+ * to JSON next to the model. Gender, age, region, time and risk factors are
+ * not features of this model and are ignored.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "prediction.engine", havingValue = "embedded")
+public class EmbeddedPredictionServiceImpl implements PredictionService {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Resource modelFile;
+    private final Resource featuresFile;
+    private final Resource labelsFile;
+
+    private volatile LoadedModel loaded = null;
+
+    public EmbeddedPredictionServiceImpl(
+            @Value("${prediction.embedded.model-path:file:../FastApi/model2/xgboost_model_1.json}") Resource modelFile,
+            @Value("${prediction.embedded.features-path:file:../FastApi/model2/all_symptoms_1.json}") Resource featuresFile,
+            @Value("${prediction.embedded.labels-path:file:../FastApi/model2/label_encoder_1.json}") Resource labelsFile) {
+        this.modelFile = modelFile;
+        this.featuresFile = featuresFile;
+        this.labelsFile = labelsFile;
+    }
+
+    /**
+     * Loads the model once the application has started. A failure is logged
+     * and predictions fail until the files are fixed and the app restarted.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            load();
+        } catch (Exception e) {
+            log.warn("Could not load the embedded XGBoost model, predictions will fail: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the model, the feature names and the class labels.
+     *
+     * @throws IOException              if a file cannot be read
+     * @throws IllegalArgumentException if the files do not match each other
+     */
+    public synchronized void load() throws IOException {
+        long start = System.currentTimeMillis();
+        XGBoostModel model;
+        try (InputStream in = modelFile.getInputStream()) {
+            model = XGBoostModel.load(in, objectMapper);
+        }
+        List<String> features;
+        try (InputStream in = featuresFile.getInputStream()) {
+            features = objectMapper.readValue(in, new TypeReference<List<String>>() {
+            });
+        }
+        List<String> labels;
+        try (InputStream in = labelsFile.getInputStream()) {
+            labels = objectMapper.readValue(in, new TypeReference<List<String>>() {
+            });
+        }
+        if (features.size() != model.numFeatures()) {
+            throw new IllegalArgumentException("Model expects " + model.numFeatures() + " features but "
+                    + features.size() + " symptom names were exported");
+        }
+        if (labels.size() != model.numClasses()) {
+            throw new IllegalArgumentException("Model has " + model.numClasses() + " classes but "
+                    + labels.size() + " labels were exported");
+        }
+
+        this.loaded = new LoadedModel(model, FeatureEncoder.of(features, List.of()), labels.toArray(new String[0]));
+        log.info("Embedded XGBoost model loaded: {} features (vocabulary {}), {} classes in {} ms",
+                features.size(), loaded.encoder.version(), labels.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public Mono<PredictionResponse> predictDisease(String gender, int age, String region, String time,
+            List<String> symptoms, List<String> riskFactors, int topK) {
+        return Mono.fromCallable(() -> {
+            LoadedModel current = this.loaded;
+            if (current == null) {
+                throw new IllegalStateException("Embedded prediction model is not loaded");
+            }
+            FeatureEncoder.Encoded encoded = current.encoder.encode(symptoms, riskFactors);
+            double[] probabilities = current.model.predict(current.dense(encoded.symptomIndices()));
+            PredictionResponse response = new PredictionResponse();
+            response.setTop_predictions(current.topK(probabilities, topK));
+            return encoded.annotate(response);
+        });
+    }
+
+    /**
+     * Immutable loaded model with its feature and label lookups.
+     */
+    private static final class LoadedModel {
+        final XGBoostModel model;
+        final FeatureEncoder encoder;
+        final String[] labels;
+
+        LoadedModel(XGBoostModel model, FeatureEncoder encoder, String[] labels) {
+            this.model = model;
+            this.encoder = encoder;
+            this.labels = labels;
+        }
+
+        // Giống prepare_input của predict2.py: 1 cho triệu chứng có mặt, 0 cho phần còn lại
+        float[] dense(int[] symptomIndices) {
+            float[] features = new float[model.numFeatures()];
+            for (int index : symptomIndices) {
+                features[index] = 1f;
+            }
+            return features;
+        }
+
+        List<DiseasePrediction> topK(double[] probabilities, int k) {
+            int count = Math.min(Math.max(1, k), probabilities.length);
+            boolean[] taken = new boolean[probabilities.length];
+            List<DiseasePrediction> top = new ArrayList<>(count);
+            for (int n = 0; n < count; n++) {
+                int best = -1;
+                for (int c = 0; c < probabilities.length; c++) {
+                    if (!taken[c] && (best < 0 || probabilities[c] > probabilities[best])) {
+                        best = c;
+                    }
+                }
+                taken[best] = true;
+                DiseasePrediction prediction = new DiseasePrediction();
+                prediction.setDisease(labels[best]);
+                prediction.setProbability_percentage(Math.round(probabilities[best] * 10000) / 100.0);
+                top.add(prediction);
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.prediction.backend.services.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import com.prediction.backend.dto.response.PredictionResponse;
+
+/**
+ * Symptom and risk-factor vocabulary of a prediction model, compiled once
+ * into hash lookups. Encodes free-text names into sorted, de-duplicated index
+ * vectors over the vocabulary and keeps the names it could not encode, so
+ * they can be reported instead of being dropped. Names are matched exactly or
+ * after the FastAPI normalisation (no diacritics, lower case, '_' for
+ * spaces).
+ */
+final class FeatureEncoder {
+
+    private final String version;
+    private final String[] symptoms;
+    private final String[] riskFactors;
+    private final Map<String, Integer> symptomIndex;
+    private final Map<String, Integer> riskFactorIndex;
+
+    private FeatureEncoder(List<String> symptoms, List<String> riskFactors) {
+        this.symptoms = symptoms.toArray(new String[0]);
+        this.riskFactors = riskFactors.toArray(new String[0]);
+        this.symptomIndex = index(this.symptoms);
+        this.riskFactorIndex = index(this.riskFactors);
+        this.version = fingerprint(symptoms, riskFactors);
+    }
+
+    /**
+     * Compiles a vocabulary. The position of a name is its index in the
+     * encoded vectors.
+     */
+    static FeatureEncoder of(List<String> symptoms, List<String> riskFactors) {
+        return new FeatureEncoder(symptoms != null ? symptoms : List.of(),
+                riskFactors != null ? riskFactors : List.of());
+    }
+
+    /**
+     * Short hash of the vocabulary; it changes whenever the model's
+     * vocabulary does.
+     */
+    String version() {
+        return version;
+    }
+
+    int symptomCount() {
+        return symptoms.length;
+    }
+
+    int riskFactorCount() {
+        return riskFactors.length;
+    }
+
+    String symptom(int index) {
+        return symptoms[index];
+    }
+
+    String riskFactor(int index) {
+        return riskFactors[index];
+    }
+
+    Encoded encode(List<String> symptomNames, List<String> riskFactorNames) {
+        List<String> unknownSymptoms = new ArrayList<>();
+        int[] symptomIndices = encode(symptomNames, symptomIndex, unknownSymptoms);
+        List<String> unknownRiskFactors = new ArrayList<>();
+        int[] riskFactorIndices = encode(riskFactorNames, riskFactorIndex, unknownRiskFactors);
+        // Mô hình không dùng yếu tố nguy cơ thì không coi chúng là không nhận diện được
+        if (riskFactors.length == 0) {
+            unknownRiskFactors.clear();
+        }
+        return new Encoded(symptomIndices, riskFactorIndices, unknownSymptoms, unknownRiskFactors);
+    }
+
+    private static int[] encode(List<String> names, Map<String, Integer> lookup, List<String> unknown) {
+        if (names == null || names.isEmpty()) {
+            return new int[0];
+        }
+        int[] indices = new int[names.size()];
+        int count = 0;
+        for (String name : names) {
+            if (name == null || name.isBlank()) {
+                continue;
+            }
+            Integer index = lookup.get(name);
+            if (index == null) {
+                index = lookup.get(PredictionServiceImpl.normalize(name));
+            }
+            if (index == null) {
+                unknown.add(name);
+            } else {
+                indices[count++] = index;
+            }
+        }
+        return Arrays.stream(indices, 0, count).sorted().distinct().toArray();
+    }
+
+    private static Map<String, Integer> index(String[] names) {
+        Map<String, Integer> lookup = new HashMap<>(names.length * 4);
+        for (int i = 0; i < names.length; i++) {
+            lookup.put(names[i], i);
+        }
+        for (int i = 0; i < names.length; i++) {
+            lookup.putIfAbsent(PredictionServiceImpl.normalize(names[i]), i);
+        }
+        return lookup;
+    }
+
+    private static String fingerprint(List<String> symptoms, List<String> riskFactors) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.join("\n", symptoms).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.join("\n", riskFactors).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString((symptoms.hashCode() * 31) + riskFactors.hashCode());
+        }
+    }
+
+    /**
+     * Encoded input: sorted vocabulary indices and the names that are not in
+     * the vocabulary.
+     */
+    record Encoded(int[] symptomIndices, int[] riskFactorIndices, List<String> unknownSymptoms,
+            List<String> unknownRiskFactors) {
+
+        /**
+         * Returns a copy of the model response carrying the unknown names.
+         */
+        PredictionResponse annotate(PredictionResponse response) {
+            PredictionResponse annotated = new PredictionResponse();
+            annotated.setTop_predictions(response.getTop_predictions());
+            annotated.setUnknown_symptoms(unknownSymptoms);
+            annotated.setUnknown_risk_factors(unknownRiskFactors);
+            return annotated;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.prediction.backend.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.prediction.backend.models.ConversationState;
+import com.prediction.backend.services.ConversationStateStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory implementation of the ConversationStateStore interface.
+ * States live in a Caffeine cache bounded by size and evicted after being idle
+ * for chat.state.idle-ttl. The cache statistics and an estimate of the memory
+ * held by the states are published as actuator metrics.
+ * <p>
+ * Like the database-backed store, callers get a copy of the stored state and
+ * save replaces it with a copy, so concurrent turns of one conversation never
+ * change the same lists; the last save wins. The stored states are never
+ * changed in place, so the memory gauge can read them at any time.
+ */
+@Service
+@ConditionalOnProperty(name = "chat.state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryConversationStateStore implements ConversationStateStore {
+
+    private static final String CACHE_NAME = "conversationStates";
+
+    private final Cache<String, ConversationState> states;
+
+    public InMemoryConversationStateStore(MeterRegistry meterRegistry,
+            @Value("${chat.state.idle-ttl:2h}") Duration idleTtl,
+            @Value("${chat.state.max-size:10000}") long maxSize) {
+        this.states = Caffeine.newBuilder()
+                .expireAfterAccess(idleTtl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, states, CACHE_NAME);
+        Gauge.builder("chat.state.memory.estimated", this, InMemoryConversationStateStore::estimateBytes)
+                .description("Approximate memory held by in-progress chatbot conversation states")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ConversationState load(String conversationId) {
+        return states.get(conversationId, ConversationState::new).copy();
+    }
+
+    @Override
+    public void save(ConversationState state) {
+        state.setLastAccess(Instant.now());
+        states.put(state.getConversationId(), state.copy());
+    }
+
+    @Override
+    public void remove(String conversationId) {
+        states.invalidate(conversationId);
+    }
+
+    /**
+     * Estimates the memory held by the states from the length of their texts
+     * (two bytes per char), which dominates their size.
+     */
+    private double estimateBytes() {
+        long chars = 0;
+        for (ConversationState state : states.asMap().values()) {
+            for (Map<String, Object> content : state.getConversation().getContents()) {
+                Object parts = content.get("parts");
+                if (parts instanceof List<?> partList) {
+                    for (Object part : partList) {
+                        if (part instanceof Map<?, ?> partMap && partMap.get("text") instanceof String text) {
+                            chars += text.length();
+                        }
+                    }
+                }
+            }
+            for (String data : state.getCollectedData()) {
+                chars += data.length();
+            }
+        }
+        return chars * 2.0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.prediction.backend.services.impl;
+
+import com.prediction.backend.models.ConversationState;
+import com.prediction.backend.repositories.ConversationStateRepository;
+import com.prediction.backend.services.ConversationStateStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * MongoDB implementation of the ConversationStateStore interface.
+ * States are kept in the 'conversation_states' collection, so they survive
+ * restarts and are shared by every backend instance. A TTL index on lastAccess
+ * lets MongoDB delete states idle for longer than chat.state.idle-ttl.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "chat.state.store", havingValue = "mongo")
+public class MongoConversationStateStore implements ConversationStateStore {
+
+    private final ConversationStateRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final Duration idleTtl;
+
+    public MongoConversationStateStore(ConversationStateRepository repository, MongoTemplate mongoTemplate,
+            @Value("${chat.state.idle-ttl:2h}") Duration idleTtl) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.idleTtl = idleTtl;
+    }
+
+    /**
+     * Creates the TTL index once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            mongoTemplate.indexOps(ConversationState.class)
+                    .ensureIndex(new Index().on("lastAccess", Sort.Direction.ASC).expire(idleTtl));
+        } catch (Exception e) {
+            log.warn("Could not create TTL index on conversation_states: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public ConversationState load(String conversationId) {
+        return repository.findById(conversationId)
+                .filter(state -> state.getLastAccess() == null
+                        || state.getLastAccess().isAfter(Instant.now().minus(idleTtl)))
+                .orElseGet(() -> new ConversationState(conversationId));
+    }
+
+    @Override
+    public void save(ConversationState state) {
+        state.setLastAccess(Instant.now());
+        repository.save(state);
+    }
+
+    @Override
+    public void remove(String conversationId) {
+        repository.deleteById(conversationId);
+    }
+}
@@ -16,6 +16,8 @@ import com.prediction.backend.repositories.PatientCaseRepository;
 import com.prediction.backend.repositories.UserRepository;
 import com.prediction.backend.services.NotificationService;
 import com.prediction.backend.services.PatientCaseService;
+import com.prediction.backend.services.RuleMiningService;
+import com.prediction.backend.services.StatisticsRollupService;
 
 @Service
 public class PatientCaseServiceImpl implements PatientCaseService {
@@ -31,6 +33,12 @@ public class PatientCaseServiceImpl implements PatientCaseService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private StatisticsRollupService statisticsRollupService;
+
+    @Autowired
+    private RuleMiningService ruleMiningService;
+
     // Xử lý gửi dữ liệu cho bác sĩ chuẩn đoán bệnh
     public PatientCase sendToDoctorForDiagnosis(DiagnosisRequest dr, String id_doctor) {
         // Lấy user gửi (bệnh nhân)
@@ -53,6 +61,8 @@ public class PatientCaseServiceImpl implements PatientCaseService {
         patientCase.setSymptoms(dr.getSymptoms());
         patientCase.setRiskFactors(dr.getRiskFactors());
         patientCase.setStatus("pending");
+        patientCase.setCreatedAt(LocalDateTime.now());
+        patientCase.setUpdatedAt(LocalDateTime.now());
 
         patientCase.setUser(sender);
 
@@ -77,6 +87,8 @@ public class PatientCaseServiceImpl implements PatientCaseService {
 
         // Lưu log ca bệnh vào DB và trả về bản ghi mới nhất
         PatientCase savedCase = patientCaseRepository.save(patientCase);
+        statisticsRollupService.recordCase(null, savedCase);
+        ruleMiningService.recordCase(null, savedCase);
 
         // Gửi notification realtime cho bác sĩ
         notificationService.notifyDoctor(id_doctor, notification);
@@ -0,0 +1,187 @@
+package com.prediction.backend.services.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.prediction.backend.config.ResilienceConfig;
+import com.prediction.backend.dto.response.BatchPredictionResponse;
+import com.prediction.backend.dto.response.PredictionResponse;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Groups concurrent prediction requests into batches for the model service's
+ * /predict/batch endpoint, which scores them as one matrix. A batch is sent
+ * when it reaches prediction.batch.max-size requests or when its first request
+ * has waited prediction.batch.max-wait, whichever comes first. Each result is
+ * handed back to the caller that submitted the request.
+ * <p>
+ * At most prediction.batch.queue-capacity requests wait for a batch; when the
+ * queue is full a request fails right away instead of piling up while the
+ * model service is slow.
+ * <p>
+ * Only created with prediction.batch.enabled=true; the request and response
+ * of /predict/batch are described in FastApi/README.md.
+ */
+@Component
+@ConditionalOnProperty(name = "prediction.batch.enabled", havingValue = "true")
+@Slf4j
+public class PredictionBatchDispatcher {
+
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final Bulkhead bulkhead;
+    private final DistributionSummary batchSize;
+    private final Timer batchLatency;
+    private final Timer queueWait;
+
+    private final Sinks.Many<PendingPrediction> queue;
+    private final Disposable subscription;
+
+    public PredictionBatchDispatcher(@Qualifier("predictionWebClient") WebClient webClient,
+            CircuitBreakerRegistry circuitBreakerRegistry, RetryRegistry retryRegistry,
+            BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry,
+            @Value("${prediction.batch.max-size:32}") int maxSize,
+            @Value("${prediction.batch.max-wait:10ms}") Duration maxWait,
+            @Value("${prediction.batch.max-in-flight:4}") int maxInFlight,
+            @Value("${prediction.batch.queue-capacity:1000}") int queueCapacity) {
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(ResilienceConfig.PREDICTION);
+        this.retry = retryRegistry.retry(ResilienceConfig.PREDICTION);
+        this.bulkhead = bulkheadRegistry.bulkhead(ResilienceConfig.PREDICTION);
+        this.batchSize = DistributionSummary.builder("prediction.batch.size")
+                .description("Number of predictions sent in one batch request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchLatency = Timer.builder("prediction.batch.latency")
+                .description("Round trip of one batch request to the model service")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("prediction.batch.queue-wait")
+                .description("Time a prediction waited for its batch to be sent")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.queue = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(queueCapacity));
+        this.subscription = queue.asFlux()
+                // fairBackpressure: chỉ lấy yêu cầu khi còn chỗ gửi lô, phần còn lại nằm trong hàng đợi có giới hạn
+                .bufferTimeout(maxSize, maxWait, true)
+                .flatMap(this::dispatch, maxInFlight)
+                .subscribe();
+    }
+
+    /**
+     * Queues one prediction request for the next batch.
+     *
+     * @param requestBody the request body as sent to /predict
+     * @return the prediction for this request, or a RejectedExecutionException
+     *         if the queue is full or the dispatcher has stopped
+     */
+    public Mono<PredictionResponse> submit(Map<String, Object> requestBody) {
+        return Mono.defer(() -> {
+            PendingPrediction pending = new PendingPrediction(requestBody, Sinks.one(), System.nanoTime());
+            Sinks.EmitResult result;
+            // FAIL_NON_SERIALIZED: một luồng khác đang đưa yêu cầu vào, thử lại ngay
+            while ((result = queue.tryEmitNext(pending)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+                Thread.onSpinWait();
+            }
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                return Mono.error(new RejectedExecutionException("Prediction batch queue is full"));
+            }
+            if (result.isFailure()) {
+                return Mono.error(new RejectedExecutionException("Prediction batch dispatcher is stopped: " + result));
+            }
+            return pending.result().asMono();
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queue.tryEmitComplete();
+        subscription.dispose();
+    }
+
+    private Mono<Void> dispatch(List<PendingPrediction> batch) {
+        long sentAt = System.nanoTime();
+        batchSize.record(batch.size());
+        List<Map<String, Object>> items = new ArrayList<>(batch.size());
+        for (PendingPrediction pending : batch) {
+            queueWait.record(sentAt - pending.queuedAt(), TimeUnit.NANOSECONDS);
+            items.add(pending.requestBody());
+        }
+
+        return webClient.post()
+                .uri("/predict/batch")
+                .bodyValue(Map.of("items", items))
+                .retrieve()
+                .bodyToMono(BatchPredictionResponse.class)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty prediction batch response")))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry))
+                .doOnNext(response -> fanOut(batch, response))
+                .doOnError(e -> {
+                    log.warn("Batch of {} predictions failed: {}", batch.size(), e.toString());
+                    batch.forEach(pending -> pending.result().tryEmitError(e));
+                })
+                .doFinally(signal -> {
+                    batchLatency.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+                    // Không để người gọi nào chờ mãi, kể cả khi lô bị huỷ; sink đã có kết quả thì bỏ qua
+                    batch.forEach(pending -> pending.result().tryEmitError(
+                            new IllegalStateException("Prediction batch ended without a result")));
+                })
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private static void fanOut(List<PendingPrediction> batch, BatchPredictionResponse response) {
+        List<BatchPredictionResponse.Result> results = response.getResults();
+        for (int i = 0; i < batch.size(); i++) {
+            Sinks.One<PredictionResponse> sink = batch.get(i).result();
+            if (results == null || i >= results.size() || results.get(i) == null) {
+                sink.tryEmitError(new IllegalStateException("Missing result in prediction batch response"));
+                continue;
+            }
+            BatchPredictionResponse.Result result = results.get(i);
+            if (result.getError() != null) {
+                sink.tryEmitError(new IllegalArgumentException(result.getError()));
+                continue;
+            }
+            PredictionResponse prediction = new PredictionResponse();
+            prediction.setTop_predictions(result.getTop_predictions() != null ? result.getTop_predictions() : List.of());
+            sink.tryEmitValue(prediction);
+        }
+    }
+
+    private record PendingPrediction(Map<String, Object> requestBody, Sinks.One<PredictionResponse> result,
+            long queuedAt) {
+    }
+}
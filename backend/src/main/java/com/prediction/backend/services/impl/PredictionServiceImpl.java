@@ -1,33 +1,108 @@
 package com.prediction.backend.services.impl;
 
+import com.prediction.backend.config.ResilienceConfig;
 import com.prediction.backend.dto.response.PredictionResponse;
 import com.prediction.backend.services.PredictionService;
 
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
+/**
+ * PredictionService implementation that calls the FastAPI model service.
+ * Selected with prediction.engine=remote, the default.
+ * <p>
+ * Results are cached by their normalised input, and calls go through the
+ * 'prediction' bulkhead, circuit breaker and retry. Symptoms and risk factors
+ * are sent as keys of the model's vocabulary once it is loaded from
+ * /diseases_and_features. With prediction.batch.enabled=true, concurrent calls
+ * are grouped into /predict/batch requests by PredictionBatchDispatcher.
+ */
 @Service
+@Slf4j
+@ConditionalOnProperty(name = "prediction.engine", havingValue = "remote", matchIfMissing = true)
 public class PredictionServiceImpl implements PredictionService {
 
-    private static final String API_URL = "http://127.0.0.1:8000";
+    private static final String CACHE_NAME = "predictions";
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_KEY = Pattern.compile("[^a-z0-9_]");
+
     private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
+    private final Bulkhead bulkhead;
+    private final AsyncCache<String, PredictionResponse> predictions;
+    // Chỉ có khi prediction.batch.enabled=true, null nếu gọi thẳng /predict
+    private final PredictionBatchDispatcher batchDispatcher;
 
-    public PredictionServiceImpl() {
-        this.webClient = WebClient.builder()
-                .baseUrl(API_URL)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    // Từ điển triệu chứng của mô hình, lấy từ /diseases_and_features khi khởi động
+    private volatile FeatureEncoder encoder = null;
+
+    public PredictionServiceImpl(@Qualifier("predictionWebClient") WebClient webClient,
+            CircuitBreakerRegistry circuitBreakerRegistry, RetryRegistry retryRegistry,
+            BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry,
+            @Value("${prediction.cache.ttl:10m}") Duration cacheTtl,
+            @Value("${prediction.cache.max-size:10000}") long cacheMaxSize,
+            ObjectProvider<PredictionBatchDispatcher> batchDispatcher) {
+        this.webClient = webClient;
+        this.batchDispatcher = batchDispatcher.getIfAvailable();
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(ResilienceConfig.PREDICTION);
+        this.retry = retryRegistry.retry(ResilienceConfig.PREDICTION);
+        this.bulkhead = bulkheadRegistry.bulkhead(ResilienceConfig.PREDICTION);
+        this.predictions = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, predictions.synchronous(), CACHE_NAME);
     }
 
+    /**
+     * Predicts through a cache keyed on the normalised input. Concurrent calls
+     * with the same key share one in-flight request to the model; a failed
+     * request is not cached.
+     */
     @Override
     public Mono<PredictionResponse> predictDisease(
         String gender,
@@ -38,6 +113,88 @@ public class PredictionServiceImpl implements PredictionService {
         List<String> riskFactors,
         int topK) {
 
+        FeatureEncoder current = this.encoder;
+        if (current == null) {
+            String key = cacheKey(gender, age, region, time, symptoms, riskFactors, topK);
+            return cached(key, gender, age, region, time, symptoms, riskFactors, topK);
+        }
+
+        // Gửi khoá trong từ điển thay vì văn bản tự do, và báo lại các tên không nhận diện được
+        FeatureEncoder.Encoded encoded = current.encode(symptoms, riskFactors);
+        List<String> symptomKeys = new ArrayList<>(encoded.symptomIndices().length);
+        for (int index : encoded.symptomIndices()) {
+            symptomKeys.add(current.symptom(index));
+        }
+        List<String> riskFactorKeys = new ArrayList<>(encoded.riskFactorIndices().length);
+        for (int index : encoded.riskFactorIndices()) {
+            riskFactorKeys.add(current.riskFactor(index));
+        }
+        String key = current.version() + ':'
+                + cacheKey(gender, age, region, time, symptomKeys, riskFactorKeys, topK);
+        return cached(key, gender, age, region, time, symptomKeys, riskFactorKeys, topK)
+                .map(encoded::annotate);
+    }
+
+    /**
+     * Loads the symptom and risk-factor vocabulary of the deployed model.
+     * Until it is loaded, or if the model service is down at startup, the raw
+     * names are sent as before.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reloadVocabulary();
+    }
+
+    /**
+     * Fetches the vocabulary again every prediction.vocabulary.refresh-interval,
+     * so it is loaded once the model service is back and a new model's
+     * vocabulary (and with it the version in the cache key) is picked up.
+     */
+    @Scheduled(fixedDelayString = "${prediction.vocabulary.refresh-interval:1m}",
+            initialDelayString = "${prediction.vocabulary.refresh-interval:1m}")
+    public void reloadVocabulary() {
+        FeatureEncoder previous = this.encoder;
+        refreshVocabulary().subscribe(
+                loaded -> {
+                    if (previous == null || !previous.version().equals(loaded.version())) {
+                        log.info("Prediction vocabulary {} loaded: {} symptoms, {} risk factors",
+                                loaded.version(), loaded.symptomCount(), loaded.riskFactorCount());
+                    }
+                },
+                e -> {
+                    if (previous == null) {
+                        log.warn("Could not load the prediction vocabulary, raw names will be sent: {}",
+                                e.getMessage());
+                    } else {
+                        log.warn("Could not refresh the prediction vocabulary, keeping {}: {}",
+                                previous.version(), e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Fetches the vocabulary from the model service and swaps it in.
+     */
+    private Mono<FeatureEncoder> refreshVocabulary() {
+        return webClient.get()
+                .uri("/diseases_and_features")
+                .retrieve()
+                .bodyToMono(ModelFeatures.class)
+                .map(features -> FeatureEncoder.of(features.unique_symptoms_normalized(),
+                        features.unique_risk_factors_normalized()))
+                .doOnNext(loaded -> this.encoder = loaded);
+    }
+
+    private Mono<PredictionResponse> cached(String key, String gender, int age, String region, String time,
+            List<String> symptoms, List<String> riskFactors, int topK) {
+        CompletableFuture<PredictionResponse> prediction = predictions.get(key,
+                (k, executor) -> callModel(gender, age, region, time, symptoms, riskFactors, topK).toFuture());
+        // Không huỷ yêu cầu dùng chung khi một người chờ huỷ
+        return Mono.fromFuture(prediction, true);
+    }
+
+    private Mono<PredictionResponse> callModel(String gender, int age, String region, String time,
+            List<String> symptoms, List<String> riskFactors, int topK) {
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("gioi_tinh", gender);
         requestBody.put("do_tuoi", age);
@@ -47,14 +204,92 @@ public class PredictionServiceImpl implements PredictionService {
         requestBody.put("yeu_to_nguy_co", riskFactors);
         requestBody.put("top_k", topK);
 
+        if (batchDispatcher != null) {
+            // Gộp với các yêu cầu đồng thời khác thành một lô gửi tới /predict/batch
+            return batchDispatcher.submit(requestBody)
+                    .onErrorResume(e -> {
+                        log.warn("Error calling prediction API: {}", e.getMessage());
+                        return Mono.error(new RuntimeException("Prediction service failed", e));
+                    });
+        }
+
         return webClient.post()
                 .uri("/predict")
                 .bodyValue(requestBody)
                 .retrieve()
                 .bodyToMono(PredictionResponse.class)
+                // Dự đoán không có tác dụng phụ nên có thể thử lại; mạch mở thì trả lỗi ngay
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry))
                 .onErrorResume(e -> {
-                    System.err.println("Error calling prediction API: " + e.getMessage());
+                    log.warn("Error calling prediction API: {}", e.getMessage());
                     return Mono.error(new RuntimeException("Prediction service failed", e));
                 });
     }
+
+    /**
+     * Builds the cache key from the inputs as the model sees them: gender and
+     * region normalised like the FastAPI service does, the exact age, the date
+     * of the symptom start (the model uses its year, month and weekday) and the
+     * sorted, de-duplicated symptoms and risk factors. The key is hashed to
+     * keep its size fixed.
+     */
+    static String cacheKey(String gender, int age, String region, String time, List<String> symptoms,
+            List<String> riskFactors, int topK) {
+        String canonical = String.join("|",
+                normalize(gender),
+                Integer.toString(age),
+                normalize(region),
+                dateOf(time),
+                String.join(",", normalizeAll(symptoms)),
+                String.join(",", normalizeAll(riskFactors)),
+                Integer.toString(topK));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            return canonical;
+        }
+    }
+
+    private static String dateOf(String time) {
+        if (time == null) {
+            return "";
+        }
+        try {
+            return LocalDateTime.parse(time).toLocalDate().toString();
+        } catch (DateTimeParseException e) {
+            return time.trim();
+        }
+    }
+
+    private static SortedSet<String> normalizeAll(List<String> items) {
+        SortedSet<String> normalized = new TreeSet<>();
+        if (items != null) {
+            for (String item : items) {
+                String key = normalize(item);
+                if (!key.isEmpty()) {
+                    normalized.add(key);
+                }
+            }
+        }
+        return normalized;
+    }
+
+    // Giống normalize_string của FastAPI: bỏ dấu, đ -> d, chữ thường, khoảng trắng -> '_'
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd').replace('Đ', 'D').toLowerCase();
+        String underscored = WHITESPACE.matcher(stripped).replaceAll("_").replaceAll("^_+|_+$", "");
+        return NON_KEY.matcher(underscored).replaceAll("");
+    }
+
+    private record ModelFeatures(List<String> unique_symptoms_normalized,
+            List<String> unique_risk_factors_normalized) {
+    }
 }
@@ -0,0 +1,289 @@
+package com.prediction.backend.services.impl;
+
+import com.prediction.backend.dto.SymptomRuleDTO;
+import com.prediction.backend.models.PatientCase;
+import com.prediction.backend.repositories.PatientCaseRepository;
+import com.prediction.backend.services.RuleMiningService;
+import com.prediction.backend.services.SymptomSuggestionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Implementation of the RuleMiningService interface.
+ * Counts, over the diagnosed cases, how many contain each symptom and each
+ * pair of symptoms; rules with one antecedent and one consequent follow from
+ * these counts like the apriori rules of FastApi/association_rules.py.
+ * <p>
+ * Symptoms are numbered on first sight and a pair is keyed by its two numbers
+ * packed into a long. The pair table is bounded: when it grows past
+ * rules.mining.max-pairs, pairs seen at most 'floor' times are dropped and the
+ * floor is raised (lossy counting), so a pair count is never more than floor
+ * below its true value. The floor stays far below the support threshold for
+ * any realistic configuration, so frequent pairs are not lost.
+ */
+@Service
+@Slf4j
+public class RuleMiningServiceImpl implements RuleMiningService {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final PatientCaseRepository patientCaseRepository;
+    private final SymptomSuggestionService symptomSuggestionService;
+    private final double minSupport;
+    private final long minCount;
+    private final double minConfidence;
+    private final int maxPairs;
+
+    private volatile Counts counts = null;
+
+    /**
+     * Constructs a RuleMiningServiceImpl.
+     *
+     * @param patientCaseRepository    Repository for accessing patient cases.
+     * @param symptomSuggestionService Service the mined rules are published to.
+     * @param minSupport               Minimum fraction of cases containing a pair.
+     * @param minCount                 Minimum number of cases containing a pair.
+     * @param minConfidence            Minimum confidence of a published rule.
+     * @param maxPairs                 Maximum number of pair counters kept.
+     */
+    public RuleMiningServiceImpl(PatientCaseRepository patientCaseRepository,
+            SymptomSuggestionService symptomSuggestionService,
+            @Value("${rules.mining.min-support:0.005}") double minSupport,
+            @Value("${rules.mining.min-count:5}") long minCount,
+            @Value("${rules.mining.min-confidence:0.5}") double minConfidence,
+            @Value("${rules.mining.max-pairs:200000}") int maxPairs) {
+        this.patientCaseRepository = patientCaseRepository;
+        this.symptomSuggestionService = symptomSuggestionService;
+        this.minSupport = minSupport;
+        this.minCount = minCount;
+        this.minConfidence = minConfidence;
+        this.maxPairs = maxPairs;
+    }
+
+    /**
+     * Builds the counts once the application has started and publishes the
+     * first rules. A failure is logged and the counts are built by the next
+     * scheduled publish instead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+            publish();
+        } catch (Exception e) {
+            log.warn("Could not mine association rules from patient cases, will retry on schedule: {}",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes the rules on a schedule, building the counts first if the
+     * startup build failed.
+     */
+    @Scheduled(fixedDelayString = "${rules.mining.publish-interval:15m}",
+            initialDelayString = "${rules.mining.publish-interval:15m}")
+    public void publishScheduled() {
+        try {
+            if (!isReady()) {
+                rebuild();
+            }
+            publish();
+        } catch (Exception e) {
+            log.warn("Could not publish mined association rules: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return counts != null;
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Counts fresh = new Counts(maxPairs);
+        long cases = 0;
+        // Đọc theo trang để không giữ toàn bộ bảng chat_logs trong bộ nhớ
+        Page<PatientCase> page = patientCaseRepository
+                .findAll(PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id")));
+        while (true) {
+            for (PatientCase patientCase : page.getContent()) {
+                fresh.apply(patientCase, 1);
+                cases++;
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = patientCaseRepository.findAll(page.nextPageable());
+        }
+        this.counts = fresh;
+        log.info("Symptom itemset counts built from {} cases ({} diagnosed, {} pairs) in {} ms",
+                cases, fresh.transactions, fresh.pairs.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public synchronized void recordCase(PatientCase previous, PatientCase current) {
+        Counts target = this.counts;
+        if (target == null) {
+            // The counts will read this case from the database when they are built
+            return;
+        }
+        if (previous != null) {
+            target.apply(previous, -1);
+        }
+        if (current != null) {
+            target.apply(current, 1);
+        }
+    }
+
+    @Override
+    public int publish() {
+        List<SymptomRuleDTO> rules;
+        long transactions;
+        synchronized (this) {
+            Counts current = this.counts;
+            if (current == null) {
+                return 0;
+            }
+            transactions = current.transactions;
+            rules = current.rules(Math.max(minCount, (long) Math.ceil(minSupport * transactions)), minConfidence);
+        }
+        symptomSuggestionService.publishMinedRules(rules);
+        log.info("Published {} association rules mined from {} diagnosed cases", rules.size(), transactions);
+        return rules.size();
+    }
+
+    /**
+     * Mutable itemset counters, guarded by the service's monitor.
+     */
+    private static final class Counts {
+        final int maxPairs;
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+        final Map<Integer, long[]> items = new HashMap<>();
+        final Map<Long, long[]> pairs = new HashMap<>();
+        long transactions = 0;
+        long floor = 0;
+
+        Counts(int maxPairs) {
+            this.maxPairs = maxPairs;
+        }
+
+        void apply(PatientCase patientCase, int delta) {
+            // Chỉ đếm ca đã có chẩn đoán của bác sĩ
+            if (patientCase.getPredictedDisease() == null || patientCase.getPredictedDisease().isBlank()
+                    || patientCase.getSymptoms() == null) {
+                return;
+            }
+            TreeSet<Integer> basket = new TreeSet<>();
+            for (String symptom : patientCase.getSymptoms()) {
+                if (symptom != null && !symptom.isBlank()) {
+                    basket.add(id(symptom.trim().toLowerCase(Locale.ROOT)));
+                }
+            }
+            if (basket.isEmpty()) {
+                return;
+            }
+            transactions += delta;
+            Integer[] sorted = basket.toArray(new Integer[0]);
+            for (int i = 0; i < sorted.length; i++) {
+                add(items, sorted[i], delta);
+                for (int j = i + 1; j < sorted.length; j++) {
+                    add(pairs, ((long) sorted[i] << 32) | sorted[j], delta);
+                }
+            }
+            if (pairs.size() > maxPairs) {
+                prune();
+            }
+        }
+
+        private int id(String name) {
+            return ids.computeIfAbsent(name, key -> {
+                names.add(key);
+                return names.size() - 1;
+            });
+        }
+
+        private static <K> void add(Map<K, long[]> counters, K key, int delta) {
+            long[] count = counters.get(key);
+            if (count == null) {
+                if (delta > 0) {
+                    counters.put(key, new long[] { delta });
+                }
+                // Cặp đã bị cắt tỉa: không có gì để trừ
+                return;
+            }
+            count[0] += delta;
+            if (count[0] <= 0) {
+                counters.remove(key);
+            }
+        }
+
+        private void prune() {
+            int before = pairs.size();
+            while (pairs.size() > maxPairs * 3 / 4) {
+                floor++;
+                for (Iterator<long[]> it = pairs.values().iterator(); it.hasNext();) {
+                    if (it.next()[0] <= floor) {
+                        it.remove();
+                    }
+                }
+            }
+            log.info("Pruned symptom pair counts from {} to {} (floor {})", before, pairs.size(), floor);
+        }
+
+        List<SymptomRuleDTO> rules(long minPairCount, double minConfidence) {
+            List<SymptomRuleDTO> rules = new ArrayList<>();
+            if (transactions <= 0) {
+                return rules;
+            }
+            double total = transactions;
+            for (Map.Entry<Long, long[]> entry : pairs.entrySet()) {
+                long both = entry.getValue()[0];
+                if (both < minPairCount) {
+                    continue;
+                }
+                int a = (int) (entry.getKey() >>> 32);
+                int b = (int) (long) entry.getKey();
+                long countA = items.getOrDefault(a, new long[] { 0 })[0];
+                long countB = items.getOrDefault(b, new long[] { 0 })[0];
+                if (countA <= 0 || countB <= 0) {
+                    continue;
+                }
+                addRule(rules, a, b, both, countA, countB, total, minConfidence);
+                addRule(rules, b, a, both, countB, countA, total, minConfidence);
+            }
+            return rules;
+        }
+
+        private void addRule(List<SymptomRuleDTO> rules, int antecedent, int consequent, long both,
+                long antecedentCount, long consequentCount, double total, double minConfidence) {
+            double confidence = (double) both / antecedentCount;
+            if (confidence < minConfidence) {
+                return;
+            }
+            rules.add(SymptomRuleDTO.builder()
+                    .antecedents(List.of(names.get(antecedent)))
+                    .consequents(List.of(names.get(consequent)))
+                    .support(both / total)
+                    .confidence(confidence)
+                    .lift(confidence / (consequentCount / total))
+                    .build());
+        }
+    }
+}
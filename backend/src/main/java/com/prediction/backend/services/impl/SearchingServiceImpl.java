@@ -1,16 +1,21 @@
 package com.prediction.backend.services.impl;
 
 import com.prediction.backend.models.Disease;
-import com.prediction.backend.models.Symptom;
 import com.prediction.backend.repositories.DiseaseSymptomRepository;
 import com.prediction.backend.repositories.SymptomRepository;
 import com.prediction.backend.repositories.DiseaseRepository;
+import com.prediction.backend.services.DiseaseIndexService;
 import com.prediction.backend.services.SearchingService;
+import com.prediction.backend.services.SymptomMatcherService;
 
 import jakarta.validation.constraints.Null;
 
 import com.prediction.backend.dto.DiseaseMatchDTO;
+import com.prediction.backend.dto.DiseaseScoreDTO;
+import com.prediction.backend.dto.DiseaseSummaryDTO;
 import com.prediction.backend.dto.request.SearchingRequest;
+import com.prediction.backend.dto.response.RankedDiseaseResponse;
+import com.prediction.backend.dto.response.RankedSearchingResponse;
 import com.prediction.backend.dto.response.SearchingResponse;
 import com.prediction.backend.exceptions.AppException;
 import com.prediction.backend.exceptions.ErrorCode;
@@ -21,6 +26,8 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.Objects;
 
@@ -34,6 +41,8 @@ public class SearchingServiceImpl implements SearchingService {
     private final SymptomRepository symptomRepository;
     private final DiseaseSymptomRepository diseaseSymptomRepository;
     private final DiseaseRepository diseaseRepository;
+    private final DiseaseIndexService diseaseIndexService;
+    private final SymptomMatcherService symptomMatcherService;
 
     /**
      * Initializes DiagnosisServiceImpl with SymptomRepository and
@@ -42,13 +51,18 @@ public class SearchingServiceImpl implements SearchingService {
      * @param symptomRepository        Repository for accessing symptom data.
      * @param diseaseSymptomRepository Repository for accessing disease-symptom
      *                                 relationship data.
+     * @param diseaseIndexService      In-memory symptom to disease index.
+     * @param symptomMatcherService    In-memory symptom name and synonym matcher.
      */
     @Autowired
     public SearchingServiceImpl(DiseaseRepository diseaseRepository, SymptomRepository symptomRepository,
-            DiseaseSymptomRepository diseaseSymptomRepository) {
+            DiseaseSymptomRepository diseaseSymptomRepository, DiseaseIndexService diseaseIndexService,
+            SymptomMatcherService symptomMatcherService) {
         this.diseaseRepository = diseaseRepository;
         this.symptomRepository = symptomRepository;
         this.diseaseSymptomRepository = diseaseSymptomRepository;
+        this.diseaseIndexService = diseaseIndexService;
+        this.symptomMatcherService = symptomMatcherService;
     }
 
     /**
@@ -73,14 +87,7 @@ public class SearchingServiceImpl implements SearchingService {
             }
 
             // Tìm symptomIds từ symptomNames
-            List<String> symptomIds = new ArrayList<>();
-            for (String name : searchingRequest.getSymptomNames()) {
-                List<Symptom> symptoms = symptomRepository.findByNameOrSynonym(name);
-                symptomIds.addAll(symptoms.stream()
-                        .map(Symptom::getSymptomId)
-                        .collect(Collectors.toList()));
-            }
-            symptomIds = symptomIds.stream().distinct().collect(Collectors.toList());
+            List<String> symptomIds = resolveSymptomIds(searchingRequest.getSymptomNames());
 
             // Kiểm tra nếu không tìm thấy triệu chứng nào phù hợp
             if (symptomIds.isEmpty()) {
@@ -92,13 +99,12 @@ public class SearchingServiceImpl implements SearchingService {
             }
 
             // Tìm các bệnh có tất cả các triệu chứng
-            long symptomCount = symptomIds.size(); // Số lượng triệu chứng đầu vào
-            List<Object[]> diseaseMatches = diseaseSymptomRepository.findDiseasesWithAllSymptoms(symptomIds,
-                    symptomCount);
+            List<String> diseaseIds = findDiseaseIdsWithAllSymptoms(symptomIds);
 
-            // Chuyển đổi kết quả thành danh sách Disease
-            List<Disease> diseases = diseaseMatches.stream()
-                    .map(obj -> diseaseRepository.findById((String) obj[0]).orElse(null))
+            // Chuyển đổi kết quả thành danh sách Disease (một truy vấn, giữ nguyên thứ tự)
+            Map<String, Disease> diseasesById = loadDiseasesById(diseaseIds, searchingRequest.isSummaryOnly());
+            List<Disease> diseases = diseaseIds.stream()
+                    .map(diseasesById::get)
                     .filter(Objects::nonNull)
                     .collect(Collectors.toList());
 
@@ -123,4 +129,116 @@ public class SearchingServiceImpl implements SearchingService {
             throw new AppException(ErrorCode.DIAGNOSIS_PROCESSING_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Ranks diseases by the weighted share of their symptoms that match the
+     * provided symptom names. Unlike {@link #search}, a disease does not need to
+     * contain every symptom to be returned.
+     *
+     * @param searchingRequest the symptom names to rank diseases for
+     * @param topK             the maximum number of diseases to return
+     * @return the best matching diseases with their scores, best first.
+     *         The list is empty if no symptom or disease matches.
+     */
+    @Override
+    public RankedSearchingResponse searchRanked(SearchingRequest searchingRequest, int topK) {
+        try {
+            if (searchingRequest == null || searchingRequest.getSymptomNames() == null ||
+                    searchingRequest.getSymptomNames().isEmpty()) {
+                throw new AppException(ErrorCode.SYMPTOMS_EMPTY);
+            }
+
+            List<String> symptomIds = resolveSymptomIds(searchingRequest.getSymptomNames());
+            if (symptomIds.isEmpty()) {
+                return RankedSearchingResponse.builder()
+                        .diseases(Collections.emptyList())
+                        .matchedSymptomCount(0)
+                        .message("Không tìm thấy triệu chứng nào phù hợp trong cơ sở dữ liệu")
+                        .build();
+            }
+
+            // Ranking needs the weights of every disease, so load the index on demand
+            if (!diseaseIndexService.isReady()) {
+                diseaseIndexService.rebuild();
+            }
+            List<DiseaseScoreDTO> scores = diseaseIndexService.rankDiseases(symptomIds, topK);
+
+            Map<String, Disease> diseasesById = loadDiseasesById(scores.stream()
+                    .map(DiseaseScoreDTO::getDiseaseId)
+                    .collect(Collectors.toList()), searchingRequest.isSummaryOnly());
+
+            List<RankedDiseaseResponse> ranked = scores.stream()
+                    .filter(score -> diseasesById.containsKey(score.getDiseaseId()))
+                    .map(score -> RankedDiseaseResponse.builder()
+                            .disease(diseasesById.get(score.getDiseaseId()))
+                            .score(score.getScore())
+                            .matchedSymptomCount(score.getMatchCount())
+                            .build())
+                    .collect(Collectors.toList());
+
+            return RankedSearchingResponse.builder()
+                    .diseases(ranked)
+                    .matchedSymptomCount(symptomIds.size())
+                    .message("Ranked search successful, found " + ranked.size() + " candidate diseases")
+                    .build();
+
+        } catch (AppException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AppException(ErrorCode.DIAGNOSIS_PROCESSING_ERROR);
+        }
+    }
+
+    /**
+     * Loads the given diseases in a single query.
+     *
+     * @param diseaseIds  the IDs of the diseases to load
+     * @param summaryOnly whether to load only the summary fields, skipping the
+     *                    TEXT descriptions
+     * @return a map from disease ID to disease; missing IDs are absent
+     */
+    private Map<String, Disease> loadDiseasesById(List<String> diseaseIds, boolean summaryOnly) {
+        if (diseaseIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (summaryOnly) {
+            return diseaseRepository.findSummariesByDiseaseIdIn(diseaseIds).stream()
+                    .map(DiseaseSummaryDTO::toDisease)
+                    .collect(Collectors.toMap(Disease::getDiseaseId, Function.identity(), (a, b) -> a));
+        }
+        return diseaseRepository.findAllById(diseaseIds).stream()
+                .collect(Collectors.toMap(Disease::getDiseaseId, Function.identity(), (a, b) -> a));
+    }
+
+    /**
+     * Resolves symptom names to distinct symptom IDs by name or synonym, using the
+     * in-memory symptom matcher.
+     *
+     * @param symptomNames the symptom names to resolve
+     * @return a list of distinct symptom IDs, empty if nothing matches
+     */
+    private List<String> resolveSymptomIds(List<String> symptomNames) {
+        return symptomMatcherService.resolveAll(symptomNames).values().stream()
+                .flatMap(List::stream)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds the IDs of diseases associated with all given symptoms.
+     * Uses the in-memory index when it is loaded, otherwise falls back to the
+     * GROUP BY query on 'disease_symptom'.
+     *
+     * @param symptomIds distinct symptom IDs to match
+     * @return a list of matching disease IDs
+     */
+    private List<String> findDiseaseIdsWithAllSymptoms(List<String> symptomIds) {
+        if (diseaseIndexService.isReady()) {
+            return diseaseIndexService.findDiseasesWithAllSymptoms(symptomIds);
+        }
+        long symptomCount = symptomIds.size(); // Số lượng triệu chứng đầu vào
+        return diseaseSymptomRepository.findDiseasesWithAllSymptoms(symptomIds, symptomCount).stream()
+                .map(obj -> (String) obj[0])
+                .collect(Collectors.toList());
+    }
+}
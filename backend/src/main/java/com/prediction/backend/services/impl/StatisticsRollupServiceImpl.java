@@ -0,0 +1,295 @@
+package com.prediction.backend.services.impl;
+
+import com.prediction.backend.models.PatientCase;
+import com.prediction.backend.repositories.PatientCaseRepository;
+import com.prediction.backend.services.StatisticsRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Implementation of the StatisticsRollupService interface.
+ * Keeps the counters in concurrent maps, once for all history and once per day
+ * of the case date (created_at, or symptom_start_time for older cases without
+ * it). Entries whose count drops to zero are removed, so a read over all
+ * history is proportional to the number of groups and a windowed read to the
+ * number of days times groups, never to the number of cases.
+ */
+@Service
+@Slf4j
+public class StatisticsRollupServiceImpl implements StatisticsRollupService {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final PatientCaseRepository patientCaseRepository;
+
+    private volatile Rollup rollup = null;
+
+    /**
+     * Constructs a StatisticsRollupServiceImpl with the required repository.
+     *
+     * @param patientCaseRepository Repository for accessing patient cases.
+     */
+    @Autowired
+    public StatisticsRollupServiceImpl(PatientCaseRepository patientCaseRepository) {
+        this.patientCaseRepository = patientCaseRepository;
+    }
+
+    /**
+     * Loads the counters once the application has started.
+     * A failure is logged and the counters are loaded on the first query instead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Could not build statistics rollup, it will be built on first use: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return rollup != null;
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Rollup fresh = new Rollup();
+        long cases = 0;
+        // Đọc theo trang để không giữ toàn bộ bảng chat_logs trong bộ nhớ
+        Page<PatientCase> page = patientCaseRepository
+                .findAll(PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id")));
+        while (true) {
+            for (PatientCase patientCase : page.getContent()) {
+                fresh.apply(patientCase, 1);
+                cases++;
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = patientCaseRepository.findAll(page.nextPageable());
+        }
+        this.rollup = fresh;
+        log.info("Statistics rollup built from {} cases in {} ms", cases, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public synchronized void recordCase(PatientCase previous, PatientCase current) {
+        Rollup target = this.rollup;
+        if (target == null) {
+            // The rollup will read this case from the database when it is built
+            return;
+        }
+        if (previous != null) {
+            target.apply(previous, -1);
+        }
+        if (current != null) {
+            target.apply(current, 1);
+        }
+    }
+
+    @Override
+    public PatientCase snapshot(PatientCase patientCase) {
+        PatientCase copy = new PatientCase();
+        copy.setId(patientCase.getId());
+        copy.setSeason(patientCase.getSeason());
+        copy.setLocation(patientCase.getLocation());
+        copy.setPredictedDisease(patientCase.getPredictedDisease());
+        copy.setGender(patientCase.getGender());
+        copy.setAge(patientCase.getAge());
+        copy.setCreatedAt(patientCase.getCreatedAt());
+        copy.setSymptomStartTime(patientCase.getSymptomStartTime());
+        copy.setSymptoms(patientCase.getSymptoms() != null ? new ArrayList<>(patientCase.getSymptoms()) : null);
+        return copy;
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getSeasonDiseaseCounts(LocalDate from, LocalDate to) {
+        return sumNested(readyRollup().select(from, to), counters -> counters.seasonDisease);
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getLocationDiseaseCounts(LocalDate from, LocalDate to) {
+        return sumNested(readyRollup().select(from, to), counters -> counters.locationDisease);
+    }
+
+    @Override
+    public Map<String, Long> getSymptomCounts(LocalDate from, LocalDate to) {
+        return sum(readyRollup().select(from, to), counters -> counters.symptoms);
+    }
+
+    @Override
+    public Map<String, Long> getGenderCounts(LocalDate from, LocalDate to) {
+        return sum(readyRollup().select(from, to), counters -> counters.genders);
+    }
+
+    @Override
+    public Map<String, Long> getAgeGroupCounts(LocalDate from, LocalDate to) {
+        return sum(readyRollup().select(from, to), counters -> counters.ageGroups);
+    }
+
+    /**
+     * Returns the rollup, building it first if it is not loaded yet.
+     */
+    private Rollup readyRollup() {
+        Rollup current = this.rollup;
+        if (current == null) {
+            rebuild();
+            current = this.rollup;
+        }
+        return current;
+    }
+
+    private static Map<String, Long> sum(Iterable<Counters> buckets,
+            Function<Counters, Map<String, Long>> counter) {
+        Map<String, Long> total = new HashMap<>();
+        for (Counters bucket : buckets) {
+            counter.apply(bucket).forEach((key, count) -> total.merge(key, count, Long::sum));
+        }
+        return total;
+    }
+
+    private static Map<String, Map<String, Long>> sumNested(Iterable<Counters> buckets,
+            Function<Counters, Map<String, ConcurrentHashMap<String, Long>>> counter) {
+        Map<String, Map<String, Long>> total = new HashMap<>();
+        for (Counters bucket : buckets) {
+            counter.apply(bucket).forEach((key, inner) -> inner.forEach((innerKey, count) -> total
+                    .computeIfAbsent(key, k -> new HashMap<>())
+                    .merge(innerKey, count, Long::sum)));
+        }
+        return total;
+    }
+
+    /**
+     * Returns the day a case is bucketed under, or null if it has no date.
+     */
+    static LocalDate caseDate(PatientCase pc) {
+        if (pc.getCreatedAt() != null) {
+            return pc.getCreatedAt().toLocalDate();
+        }
+        if (pc.getSymptomStartTime() != null) {
+            return pc.getSymptomStartTime().toLocalDate();
+        }
+        return null;
+    }
+
+    /**
+     * Maps an age to its ten-year group, as used by the age group statistics.
+     */
+    static String ageGroup(int age) {
+        if (age < 10)
+            return "0-9";
+        if (age < 20)
+            return "10-19";
+        if (age < 30)
+            return "20-29";
+        if (age < 40)
+            return "30-39";
+        if (age < 50)
+            return "40-49";
+        if (age < 60)
+            return "50-59";
+        if (age < 70)
+            return "60-69";
+        return "70+";
+    }
+
+    /**
+     * Counters for all history plus one set per day, replaced as a whole on
+     * rebuild.
+     */
+    private static final class Rollup {
+        final Counters total = new Counters();
+        final NavigableMap<LocalDate, Counters> daily = new ConcurrentSkipListMap<>();
+
+        void apply(PatientCase pc, long delta) {
+            total.apply(pc, delta);
+            LocalDate day = caseDate(pc);
+            if (day != null) {
+                daily.computeIfAbsent(day, k -> new Counters()).apply(pc, delta);
+            }
+        }
+
+        /**
+         * Selects the buckets covering [from, to], both inclusive and optional;
+         * none if from is after to.
+         */
+        Iterable<Counters> select(LocalDate from, LocalDate to) {
+            if (from == null && to == null) {
+                return List.of(total);
+            }
+            if (from != null && to != null && from.isAfter(to)) {
+                return List.of();
+            }
+            NavigableMap<LocalDate, Counters> window = daily;
+            if (from != null) {
+                window = window.tailMap(from, true);
+            }
+            if (to != null) {
+                window = window.headMap(to, true);
+            }
+            return window.values();
+        }
+    }
+
+    /**
+     * One set of counters.
+     */
+    private static final class Counters {
+        final Map<String, ConcurrentHashMap<String, Long>> seasonDisease = new ConcurrentHashMap<>();
+        final Map<String, ConcurrentHashMap<String, Long>> locationDisease = new ConcurrentHashMap<>();
+        final Map<String, Long> symptoms = new ConcurrentHashMap<>();
+        final Map<String, Long> genders = new ConcurrentHashMap<>();
+        final Map<String, Long> ageGroups = new ConcurrentHashMap<>();
+
+        /**
+         * Adds (delta = 1) or removes (delta = -1) the contribution of a case.
+         */
+        void apply(PatientCase pc, long delta) {
+            String disease = pc.getPredictedDisease();
+            if (pc.getSeason() != null && disease != null) {
+                add(seasonDisease.computeIfAbsent(pc.getSeason(), k -> new ConcurrentHashMap<>()), disease, delta);
+            }
+            if (pc.getLocation() != null && disease != null) {
+                add(locationDisease.computeIfAbsent(pc.getLocation(), k -> new ConcurrentHashMap<>()), disease, delta);
+            }
+            List<String> symptomList = pc.getSymptoms() != null ? pc.getSymptoms() : Collections.emptyList();
+            for (String symptom : symptomList) {
+                if (symptom != null) {
+                    add(symptoms, symptom.trim().toLowerCase(), delta);
+                }
+            }
+            if (pc.getGender() != null) {
+                add(genders, pc.getGender().toLowerCase(), delta);
+            }
+            if (pc.getAge() != null) {
+                add(ageGroups, ageGroup(pc.getAge()), delta);
+            }
+        }
+
+        private static void add(Map<String, Long> counter, String key, long delta) {
+            counter.compute(key, (k, count) -> {
+                long updated = (count == null ? 0 : count) + delta;
+                return updated > 0 ? updated : null;
+            });
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.prediction.backend.services.impl;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -16,25 +16,18 @@ import com.prediction.backend.dto.response.DiseaseByLocationDTO;
 import com.prediction.backend.dto.response.DiseaseBySeasonDTO;
 import com.prediction.backend.dto.response.GenderStatDTO;
 import com.prediction.backend.dto.response.WordCloudItemDTO;
-import com.prediction.backend.models.PatientCase;
-import com.prediction.backend.repositories.PatientCaseRepository;
+import com.prediction.backend.services.StatisticsRollupService;
 import com.prediction.backend.services.StatisticsService;
 import com.fasterxml.jackson.core.type.TypeReference;
 
 @Service
 public class StatisticsServiceImpl implements StatisticsService {
     @Autowired
-    private PatientCaseRepository repository;
+    private StatisticsRollupService rollupService;
 
     @Override
-    public List<DiseaseBySeasonDTO> getDiseaseBySeasonStats() {
-        List<PatientCase> records = repository.findAll();
-
-        Map<String, Map<String, Long>> grouped = records.stream()
-                .collect(Collectors.groupingBy(
-                        PatientCase::getSeason,
-                        Collectors.groupingBy(PatientCase::getPredictedDisease,
-                                Collectors.counting())));
+    public List<DiseaseBySeasonDTO> getDiseaseBySeasonStats(LocalDate from, LocalDate to) {
+        Map<String, Map<String, Long>> grouped = rollupService.getSeasonDiseaseCounts(from, to);
 
         List<DiseaseBySeasonDTO> result = new ArrayList<>();
         grouped.forEach((season, diseaseMap) -> {
@@ -47,15 +40,8 @@ public class StatisticsServiceImpl implements StatisticsService {
     }
 
     @Override
-    public List<DiseaseByLocationDTO> getDiseaseByLocationStats() {
-        List<PatientCase> records = repository.findAll();
-
-        Map<String, Map<String, Long>> grouped = records.stream()
-                .filter(pc -> pc.getLocation() != null && pc.getPredictedDisease() != null)
-                .collect(Collectors.groupingBy(
-                        PatientCase::getLocation,
-                        Collectors.groupingBy(PatientCase::getPredictedDisease,
-                                Collectors.counting())));
+    public List<DiseaseByLocationDTO> getDiseaseByLocationStats(LocalDate from, LocalDate to) {
+        Map<String, Map<String, Long>> grouped = rollupService.getLocationDiseaseCounts(from, to);
 
         List<DiseaseByLocationDTO> result = new ArrayList<>();
         grouped.forEach((location, diseaseMap) -> {
@@ -68,27 +54,14 @@ public class StatisticsServiceImpl implements StatisticsService {
     }
 
     @Override
-    public List<WordCloudItemDTO> getSymptomWordCloud() {
-        List<PatientCase> records = repository.findAll();
-        Map<String, Integer> counter = new HashMap<>();
-
-        for (PatientCase pc : records) {
-            List<String> list = pc.getSymptoms();
-            if (list == null)
-                continue;
-            for (String item : list) {
-                String cleaned = item.trim().toLowerCase();
-                counter.put(cleaned, counter.getOrDefault(cleaned, 0) + 1);
-            }
-        }
-
-        return counter.entrySet().stream()
-                .map(entry -> new WordCloudItemDTO(entry.getKey(), entry.getValue()))
+    public List<WordCloudItemDTO> getSymptomWordCloud(LocalDate from, LocalDate to) {
+        return rollupService.getSymptomCounts(from, to).entrySet().stream()
+                .map(entry -> new WordCloudItemDTO(entry.getKey(), entry.getValue().intValue()))
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<WordCloudItemDTO> getRiskFactorWordCloud() {
+    public List<WordCloudItemDTO> getRiskFactorWordCloud(LocalDate from, LocalDate to) {
         // List<PatientCase> records = repository.findAll();
         // Map<String, Integer> counter = new HashMap<>();
 
@@ -109,64 +82,20 @@ public class StatisticsServiceImpl implements StatisticsService {
         // e.printStackTrace();
         // }
         // }
-        List<PatientCase> records = repository.findAll();
-        Map<String, Integer> counter = new HashMap<>();
-
-        for (PatientCase pc : records) {
-            List<String> list = pc.getSymptoms();
-            if (list == null)
-                continue;
-            for (String item : list) {
-                String cleaned = item.trim().toLowerCase();
-                counter.put(cleaned, counter.getOrDefault(cleaned, 0) + 1);
-            }
-        }
-
-        return counter.entrySet().stream()
-                .map(entry -> new WordCloudItemDTO(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
+        // Hiện tại đếm theo triệu chứng, giống getSymptomWordCloud
+        return getSymptomWordCloud(from, to);
     }
 
     @Override
-    public List<GenderStatDTO> getGenderStats() {
-        List<PatientCase> records = repository.findAll();
-
-        Map<String, Long> grouped = records.stream()
-                .collect(Collectors.groupingBy(
-                        pc -> pc.getGender().toLowerCase(), Collectors.counting()));
-
-        return grouped.entrySet().stream()
+    public List<GenderStatDTO> getGenderStats(LocalDate from, LocalDate to) {
+        return rollupService.getGenderCounts(from, to).entrySet().stream()
                 .map(e -> new GenderStatDTO(e.getKey(), e.getValue()))
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<AgeGroupStatDTO> getAgeGroupStats() {
-        List<PatientCase> records = repository.findAll();
-
-        Map<String, Long> grouped = records.stream()
-                .collect(Collectors.groupingBy(
-                        pc -> {
-                            int age = pc.getAge();
-                            if (age < 10)
-                                return "0-9";
-                            if (age < 20)
-                                return "10-19";
-                            if (age < 30)
-                                return "20-29";
-                            if (age < 40)
-                                return "30-39";
-                            if (age < 50)
-                                return "40-49";
-                            if (age < 60)
-                                return "50-59";
-                            if (age < 70)
-                                return "60-69";
-                            return "70+";
-                        },
-                        Collectors.counting()));
-
-        return grouped.entrySet().stream()
+    public List<AgeGroupStatDTO> getAgeGroupStats(LocalDate from, LocalDate to) {
+        return rollupService.getAgeGroupCounts(from, to).entrySet().stream()
                 .map(e -> new AgeGroupStatDTO(e.getKey(), e.getValue()))
                 .sorted(Comparator.comparing(AgeGroupStatDTO::getAgeGroup))
                 .collect(Collectors.toList());
@@ -0,0 +1,336 @@
+package com.prediction.backend.services.impl;
+
+import com.prediction.backend.models.Symptom;
+import com.prediction.backend.repositories.SymptomRepository;
+import com.prediction.backend.services.SymptomMatcherService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the SymptomMatcherService interface.
+ * Compiles the names and synonyms of all symptoms into an Aho-Corasick automaton
+ * over diacritic-folded text. A name is resolved in three steps:
+ * <ol>
+ * <li>exact match of the whole name against a name or synonym term,</li>
+ * <li>known terms found inside the name on word boundaries, longest first,</li>
+ * <li>the name contained in a synonym, as the former LIKE '%name%' query did.</li>
+ * </ol>
+ * Until the matcher is built, names are resolved with the repository query.
+ */
+@Service
+@Slf4j
+public class SymptomMatcherServiceImpl implements SymptomMatcherService {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern SYNONYM_SEPARATORS = Pattern.compile("[,;|/\\n\\r]+");
+
+    private final SymptomRepository symptomRepository;
+
+    private final List<SymptomTerms> symptoms = new ArrayList<>();
+    private volatile CompiledMatcher matcher = null;
+
+    /**
+     * Constructs a SymptomMatcherServiceImpl with the required repository.
+     *
+     * @param symptomRepository Repository for accessing symptom data.
+     */
+    @Autowired
+    public SymptomMatcherServiceImpl(SymptomRepository symptomRepository) {
+        this.symptomRepository = symptomRepository;
+    }
+
+    /**
+     * Builds the matcher once the application has started.
+     * A failure is logged and names keep being resolved by the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Could not build symptom matcher, names will be resolved by the database: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        symptoms.clear();
+        for (Symptom symptom : symptomRepository.findAll()) {
+            SymptomTerms terms = SymptomTerms.of(symptom);
+            if (terms != null) {
+                symptoms.add(terms);
+            }
+        }
+        this.matcher = new CompiledMatcher(symptoms);
+        log.info("Symptom matcher built: {} symptoms, {} terms in {} ms",
+                symptoms.size(), matcher.exact.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public List<String> resolve(String name) {
+        if (name == null || name.isBlank()) {
+            return Collections.emptyList();
+        }
+        CompiledMatcher current = this.matcher;
+        if (current == null) {
+            return symptomRepository.findByNameOrSynonym(name.trim()).stream()
+                    .map(Symptom::getSymptomId)
+                    .distinct()
+                    .collect(Collectors.toList());
+        }
+        return current.resolve(fold(name));
+    }
+
+    @Override
+    public Map<String, List<String>> resolveAll(List<String> names) {
+        Map<String, List<String>> resolved = new LinkedHashMap<>();
+        if (names == null) {
+            return resolved;
+        }
+        for (String name : names) {
+            if (name != null && !resolved.containsKey(name)) {
+                resolved.put(name, resolve(name));
+            }
+        }
+        return resolved;
+    }
+
+    @Override
+    public synchronized void addSymptom(Symptom symptom) {
+        if (this.matcher == null) {
+            return;
+        }
+        SymptomTerms terms = SymptomTerms.of(symptom);
+        if (terms != null) {
+            symptoms.add(terms);
+            this.matcher = new CompiledMatcher(symptoms);
+        }
+    }
+
+    /**
+     * Lower-cases the text, strips Vietnamese diacritics (including đ) and
+     * collapses punctuation and whitespace into single spaces.
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+        return NON_WORD.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    /**
+     * Folded terms of one symptom.
+     */
+    private static final class SymptomTerms {
+        final String symptomId;
+        final Set<String> names = new LinkedHashSet<>();
+        final List<String> synonyms = new ArrayList<>();
+
+        SymptomTerms(String symptomId) {
+            this.symptomId = symptomId;
+        }
+
+        static SymptomTerms of(Symptom symptom) {
+            if (symptom == null || symptom.getSymptomId() == null) {
+                return null;
+            }
+            SymptomTerms terms = new SymptomTerms(symptom.getSymptomId());
+            addIfPresent(terms.names, fold(symptom.getNameEn()));
+            addIfPresent(terms.names, fold(symptom.getNameVn()));
+            if (symptom.getSynonym() != null) {
+                for (String part : SYNONYM_SEPARATORS.split(symptom.getSynonym())) {
+                    String folded = fold(part);
+                    if (!folded.isEmpty()) {
+                        terms.synonyms.add(folded);
+                    }
+                }
+            }
+            return terms;
+        }
+
+        private static void addIfPresent(Set<String> target, String folded) {
+            if (!folded.isEmpty()) {
+                target.add(folded);
+            }
+        }
+    }
+
+    /**
+     * Immutable compiled form of the symptom terms.
+     */
+    private static final class CompiledMatcher {
+        final Map<String, List<String>> exact = new HashMap<>();
+        final List<SymptomTerms> synonymSource;
+        final Node root = new Node(0);
+
+        CompiledMatcher(List<SymptomTerms> source) {
+            this.synonymSource = new ArrayList<>(source);
+            for (SymptomTerms terms : source) {
+                for (String term : terms.names) {
+                    addTerm(term, terms.symptomId);
+                }
+                for (String term : terms.synonyms) {
+                    addTerm(term, terms.symptomId);
+                }
+            }
+            buildFailureLinks();
+        }
+
+        private void addTerm(String term, String symptomId) {
+            List<String> ids = exact.computeIfAbsent(term, k -> new ArrayList<>(1));
+            if (!ids.contains(symptomId)) {
+                ids.add(symptomId);
+            }
+            Node node = root;
+            for (int i = 0; i < term.length(); i++) {
+                char c = term.charAt(i);
+                Node parent = node;
+                node = parent.next.computeIfAbsent(c, k -> new Node(parent.depth + 1));
+            }
+            node.symptomIds = ids;
+        }
+
+        private void buildFailureLinks() {
+            Queue<Node> queue = new ArrayDeque<>();
+            root.fail = root;
+            for (Node child : root.next.values()) {
+                child.fail = root;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                for (Map.Entry<Character, Node> entry : node.next.entrySet()) {
+                    char c = entry.getKey();
+                    Node child = entry.getValue();
+                    Node fail = node.fail;
+                    while (fail != root && !fail.next.containsKey(c)) {
+                        fail = fail.fail;
+                    }
+                    Node target = fail.next.get(c);
+                    child.fail = target != null && target != child ? target : root;
+                    child.output = child.fail.symptomIds != null ? child.fail : child.fail.output;
+                    queue.add(child);
+                }
+            }
+        }
+
+        List<String> resolve(String folded) {
+            if (folded.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<String> ids = exact.get(folded);
+            if (ids != null) {
+                return new ArrayList<>(ids);
+            }
+
+            Set<String> contained = scan(folded);
+            if (!contained.isEmpty()) {
+                return new ArrayList<>(contained);
+            }
+
+            Set<String> legacy = new LinkedHashSet<>();
+            for (SymptomTerms terms : synonymSource) {
+                for (String synonym : terms.synonyms) {
+                    if (synonym.contains(folded)) {
+                        legacy.add(terms.symptomId);
+                        break;
+                    }
+                }
+            }
+            return new ArrayList<>(legacy);
+        }
+
+        /**
+         * Runs the automaton over the text and keeps the longest non-overlapping
+         * terms that start and end on word boundaries.
+         */
+        private Set<String> scan(String text) {
+            List<int[]> matches = new ArrayList<>();
+            List<List<String>> matchIds = new ArrayList<>();
+            Node state = root;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                while (state != root && !state.next.containsKey(c)) {
+                    state = state.fail;
+                }
+                state = state.next.getOrDefault(c, root);
+                for (Node hit = state.symptomIds != null ? state : state.output; hit != null; hit = hit.output) {
+                    int begin = i - hit.depth + 1;
+                    if (isBoundary(text, begin - 1) && isBoundary(text, i + 1)) {
+                        matches.add(new int[] { begin, i + 1 });
+                        matchIds.add(hit.symptomIds);
+                    }
+                }
+            }
+
+            Integer[] order = new Integer[matches.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int byLength = Integer.compare(matches.get(b)[1] - matches.get(b)[0],
+                        matches.get(a)[1] - matches.get(a)[0]);
+                return byLength != 0 ? byLength : Integer.compare(matches.get(a)[0], matches.get(b)[0]);
+            });
+
+            boolean[] taken = new boolean[text.length()];
+            Set<String> ids = new LinkedHashSet<>();
+            for (int index : order) {
+                int[] span = matches.get(index);
+                boolean free = true;
+                for (int p = span[0]; p < span[1] && free; p++) {
+                    free = !taken[p];
+                }
+                if (free) {
+                    for (int p = span[0]; p < span[1]; p++) {
+                        taken[p] = true;
+                    }
+                    ids.addAll(matchIds.get(index));
+                }
+            }
+            return ids;
+        }
+
+        private static boolean isBoundary(String text, int index) {
+            return index < 0 || index >= text.length() || text.charAt(index) == ' ';
+        }
+    }
+
+    /**
+     * Automaton node. symptomIds is set when a term ends here; output links to
+     * the next shorter term ending at the same position.
+     */
+    private static final class Node {
+        final Map<Character, Node> next = new HashMap<>(4);
+        final int depth;
+        Node fail;
+        Node output;
+        List<String> symptomIds;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
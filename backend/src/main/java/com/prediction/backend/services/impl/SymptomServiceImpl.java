@@ -1,5 +1,6 @@
 package com.prediction.backend.services.impl;
 
+import com.prediction.backend.config.CacheConfig;
 import com.prediction.backend.dto.response.SymptomResponse;
 import com.prediction.backend.exceptions.AppException;
 import com.prediction.backend.exceptions.ErrorCode;
@@ -8,6 +9,7 @@ import com.prediction.backend.repositories.SymptomRepository;
 import com.prediction.backend.services.SymptomService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -30,6 +32,7 @@ public class SymptomServiceImpl implements SymptomService {
      * Retrieves all symptoms from the database and converts them to DTO format.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYMPTOM_LISTS, key = "'all'")
     public List<SymptomResponse> getAllSymptoms() {
         log.info("Retrieving all symptoms");
         List<Symptom> symptoms = symptomRepository.findAll();
@@ -42,6 +45,7 @@ public class SymptomServiceImpl implements SymptomService {
      * Retrieves a symptom by its unique identifier and converts it to DTO format.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYMPTOMS, key = "#symptomId")
     public SymptomResponse getSymptomById(String symptomId) {
         log.info("Retrieving symptom with ID: {}", symptomId);
 
@@ -55,6 +59,7 @@ public class SymptomServiceImpl implements SymptomService {
      * converts to DTO format.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYMPTOM_LISTS, key = "'nameEn:' + #nameEn?.toLowerCase()")
     public List<SymptomResponse> getSymptomsByNameEn(String nameEn) {
         log.info("Searching for symptoms with English name: {}", nameEn);
 
@@ -69,6 +74,7 @@ public class SymptomServiceImpl implements SymptomService {
      * converts to DTO format.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYMPTOM_LISTS, key = "'nameVn:' + #nameVn?.toLowerCase()")
     public List<SymptomResponse> getSymptomsByNameVn(String nameVn) {
         log.info("Searching for symptoms with Vietnamese name: {}", nameVn);
 
@@ -83,6 +89,7 @@ public class SymptomServiceImpl implements SymptomService {
      * format.
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.SYMPTOM_LISTS, key = "'frequency:' + #frequency?.toUpperCase()")
     public List<SymptomResponse> getSymptomsByFrequency(String frequency) {
         log.info("Searching for symptoms with frequency: {}", frequency);
 
@@ -0,0 +1,381 @@
+package com.prediction.backend.services.impl;
+
+import com.prediction.backend.dto.SymptomRuleDTO;
+import com.prediction.backend.dto.SymptomSuggestionDTO;
+import com.prediction.backend.dto.response.SymptomResponse;
+import com.prediction.backend.services.SymptomMatcherService;
+import com.prediction.backend.services.SymptomService;
+import com.prediction.backend.services.SymptomSuggestionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Implementation of the SymptomSuggestionService interface.
+ * Loads the association rules into arrays with a posting list from each
+ * symptom to the rules whose antecedent contains it. A query counts, for each
+ * rule reached through the given symptoms, how many of its antecedent items
+ * were given; a rule applies when all of them were. This touches only the
+ * rules sharing a symptom with the query instead of scanning every rule.
+ * The rules of the rules file and the rules mined from the patient cases are
+ * kept apart and compiled into one index whenever either changes.
+ */
+@Service
+@Slf4j
+public class SymptomSuggestionServiceImpl implements SymptomSuggestionService {
+
+    // Tên trùng cột trong dataset được pandas đặt hậu tố ".1", ".2"
+    private static final Pattern DUPLICATE_SUFFIX = Pattern.compile("\\.\\d+$");
+
+    private final Resource rulesFile;
+    private final SymptomMatcherService symptomMatcherService;
+    private final SymptomService symptomService;
+
+    private List<Rule> fileRules = List.of();
+    private List<Rule> minedRules = List.of();
+    private volatile RuleIndex index = null;
+
+    /**
+     * Constructs a SymptomSuggestionServiceImpl.
+     *
+     * @param rulesFile             CSV file written by FastApi/association_rules.py.
+     * @param symptomMatcherService Matcher used to map Vietnamese names to symptoms.
+     * @param symptomService        Service for looking up the English symptom names.
+     */
+    public SymptomSuggestionServiceImpl(
+            @Value("${suggestion.rules-path:file:../FastApi/symptom_association_rules.csv}") Resource rulesFile,
+            SymptomMatcherService symptomMatcherService, SymptomService symptomService) {
+        this.rulesFile = rulesFile;
+        this.symptomMatcherService = symptomMatcherService;
+        this.symptomService = symptomService;
+    }
+
+    /**
+     * Loads the rules once the application has started. A failure is logged
+     * and no suggestions are made.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Could not load symptom association rules, no suggestions will be made: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Rule> rules = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(rulesFile.getInputStream(), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new IllegalStateException("Empty rules file");
+            }
+            List<String> columns = Arrays.asList(parseCsvLine(header));
+            int[] positions = {
+                    columns.indexOf("antecedents"), columns.indexOf("consequents"),
+                    columns.indexOf("support"), columns.indexOf("confidence"), columns.indexOf("lift") };
+            for (int position : positions) {
+                if (position < 0) {
+                    throw new IllegalStateException("Rules file is missing a column: " + header);
+                }
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = parseCsvLine(line);
+                String[] row = new String[positions.length];
+                for (int i = 0; i < positions.length; i++) {
+                    row[i] = positions[i] < fields.length ? fields[positions[i]] : "";
+                }
+                Rule rule = Rule.of(parseItemset(row[0]), parseItemset(row[1]),
+                        parse(row[2]), parse(row[3]), parse(row[4]));
+                if (rule != null) {
+                    rules.add(rule);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read rules file: " + e.getMessage(), e);
+        }
+        this.fileRules = rules;
+        this.index = compile();
+        log.info("Symptom association rules loaded: {} rules over {} symptoms in {} ms",
+                rules.size(), index.postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public synchronized void publishMinedRules(List<SymptomRuleDTO> rules) {
+        List<Rule> mined = new ArrayList<>();
+        if (rules != null) {
+            for (SymptomRuleDTO dto : rules) {
+                Rule rule = Rule.of(dto.getAntecedents(), dto.getConsequents(),
+                        dto.getSupport(), dto.getConfidence(), dto.getLift());
+                if (rule != null) {
+                    mined.add(rule);
+                }
+            }
+        }
+        this.minedRules = mined;
+        this.index = compile();
+        log.debug("Mined association rules replaced: {} rules, {} in the index", mined.size(), index.ruleCount);
+    }
+
+    private RuleIndex compile() {
+        List<Rule> rules = new ArrayList<>(fileRules.size() + minedRules.size());
+        rules.addAll(fileRules);
+        rules.addAll(minedRules);
+        return new RuleIndex(rules);
+    }
+
+    @Override
+    public List<SymptomSuggestionDTO> suggest(List<String> symptoms, int topN, Ranking ranking) {
+        RuleIndex current = this.index;
+        if (current == null || symptoms == null || symptoms.isEmpty() || topN <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> given = new LinkedHashSet<>();
+        for (String symptom : symptoms) {
+            String key = key(symptom);
+            if (key.isEmpty()) {
+                continue;
+            }
+            if (current.postings.containsKey(key) || current.consequentItems.contains(key)) {
+                given.add(key);
+            } else {
+                given.addAll(englishNames(symptom));
+            }
+        }
+        return current.suggest(given, topN, ranking == null ? Ranking.CONFIDENCE : ranking);
+    }
+
+    /**
+     * Maps a name that is not in the rules (e.g. Vietnamese) to the English
+     * names of the matching catalog symptoms, which the rules use.
+     */
+    private List<String> englishNames(String symptom) {
+        List<String> names = new ArrayList<>();
+        try {
+            for (String symptomId : symptomMatcherService.resolve(symptom)) {
+                SymptomResponse response = symptomService.getSymptomById(symptomId);
+                if (response != null && response.getNameEn() != null) {
+                    names.add(key(response.getNameEn()));
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not map symptom '{}' to the catalog: {}", symptom, e.getMessage());
+        }
+        return names;
+    }
+
+    private static String key(String symptom) {
+        if (symptom == null) {
+            return "";
+        }
+        return DUPLICATE_SUFFIX.matcher(symptom.trim().toLowerCase(Locale.ROOT)).replaceAll("");
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields with "" escapes.
+     */
+    static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Parses the items of a Python frozenset literal, e.g.
+     * frozenset({'fever', "child's cough"}).
+     */
+    static List<String> parseItemset(String literal) {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < literal.length(); i++) {
+            char quote = literal.charAt(i);
+            if (quote != '\'' && quote != '"') {
+                continue;
+            }
+            StringBuilder item = new StringBuilder();
+            int j = i + 1;
+            for (; j < literal.length() && literal.charAt(j) != quote; j++) {
+                char c = literal.charAt(j);
+                if (c == '\\' && j + 1 < literal.length()) {
+                    c = literal.charAt(++j);
+                }
+                item.append(c);
+            }
+            items.add(item.toString());
+            i = j;
+        }
+        return items;
+    }
+
+    private static double parse(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * One rule with normalised item names.
+     */
+    private record Rule(Set<String> antecedent, Set<String> consequent, double support, double confidence,
+            double lift) {
+
+        /**
+         * Normalises the items, or returns null if nothing is left of the rule.
+         */
+        static Rule of(List<String> antecedentItems, List<String> consequentItems, double support,
+                double confidence, double lift) {
+            if (antecedentItems == null || consequentItems == null) {
+                return null;
+            }
+            Set<String> antecedent = new LinkedHashSet<>();
+            for (String item : antecedentItems) {
+                antecedent.add(key(item));
+            }
+            Set<String> consequent = new LinkedHashSet<>();
+            for (String item : consequentItems) {
+                consequent.add(key(item));
+            }
+            antecedent.remove("");
+            consequent.remove("");
+            // Bỏ các luật chỉ nối một triệu chứng với bản sao của chính nó
+            consequent.removeAll(antecedent);
+            if (antecedent.isEmpty() || consequent.isEmpty()) {
+                return null;
+            }
+            return new Rule(antecedent, consequent, support, confidence, lift);
+        }
+    }
+
+    /**
+     * Immutable compiled form of the rules.
+     */
+    private static final class RuleIndex {
+        final int ruleCount;
+        final int[] antecedentSize;
+        final String[][] consequents;
+        final double[] support;
+        final double[] confidence;
+        final double[] lift;
+        final Map<String, int[]> postings = new HashMap<>();
+        final Set<String> consequentItems = new LinkedHashSet<>();
+
+        RuleIndex(List<Rule> rules) {
+            ruleCount = rules.size();
+            antecedentSize = new int[ruleCount];
+            consequents = new String[ruleCount][];
+            support = new double[ruleCount];
+            confidence = new double[ruleCount];
+            lift = new double[ruleCount];
+            Map<String, List<Integer>> postingLists = new HashMap<>();
+            for (int r = 0; r < ruleCount; r++) {
+                Rule rule = rules.get(r);
+                antecedentSize[r] = rule.antecedent().size();
+                consequents[r] = rule.consequent().toArray(new String[0]);
+                consequentItems.addAll(rule.consequent());
+                support[r] = rule.support();
+                confidence[r] = rule.confidence();
+                lift[r] = rule.lift();
+                for (String item : rule.antecedent()) {
+                    postingLists.computeIfAbsent(item, k -> new ArrayList<>()).add(r);
+                }
+            }
+            postingLists.forEach((item, ruleIds) -> postings.put(item,
+                    ruleIds.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        List<SymptomSuggestionDTO> suggest(Set<String> given, int topN, Ranking ranking) {
+            int[] hits = new int[ruleCount];
+            Map<String, Integer> bestRule = new HashMap<>();
+            for (String item : given) {
+                int[] ruleIds = postings.get(item);
+                if (ruleIds == null) {
+                    continue;
+                }
+                for (int r : ruleIds) {
+                    if (++hits[r] != antecedentSize[r]) {
+                        continue;
+                    }
+                    for (String consequent : consequents[r]) {
+                        if (!given.contains(consequent)) {
+                            bestRule.merge(consequent, r, (a, b) -> compare(a, b, ranking) >= 0 ? a : b);
+                        }
+                    }
+                }
+            }
+
+            List<Map.Entry<String, Integer>> ordered = new ArrayList<>(bestRule.entrySet());
+            ordered.sort((a, b) -> compare(b.getValue(), a.getValue(), ranking));
+            List<SymptomSuggestionDTO> suggestions = new ArrayList<>(Math.min(topN, ordered.size()));
+            for (Map.Entry<String, Integer> entry : ordered.subList(0, Math.min(topN, ordered.size()))) {
+                int r = entry.getValue();
+                suggestions.add(SymptomSuggestionDTO.builder()
+                        .symptom(entry.getKey())
+                        .confidence(confidence[r])
+                        .lift(lift[r])
+                        .support(support[r])
+                        .build());
+            }
+            return suggestions;
+        }
+
+        private int compare(int a, int b, Ranking ranking) {
+            int primary = ranking == Ranking.LIFT
+                    ? Double.compare(lift[a], lift[b])
+                    : Double.compare(confidence[a], confidence[b]);
+            if (primary != 0) {
+                return primary;
+            }
+            return ranking == Ranking.LIFT
+                    ? Double.compare(confidence[a], confidence[b])
+                    : Double.compare(lift[a], lift[b]);
+        }
+    }
+}
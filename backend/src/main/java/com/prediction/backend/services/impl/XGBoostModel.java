@@ -0,0 +1,187 @@
+package com.prediction.backend.services.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tree ensemble evaluator for a gradient boosted model saved with XGBoost's
+ * JSON format (Booster.save_model("*.json")). Supports gbtree models with
+ * numerical splits and the multi:softprob, multi:softmax and binary:logistic
+ * objectives. The trees are flattened into primitive arrays, so evaluating a
+ * row does not allocate.
+ */
+final class XGBoostModel {
+
+    private final int numFeatures;
+    private final int numClasses;
+    private final boolean binary;
+    private final float baseMargin;
+    private final Tree[] trees;
+    private final int[] treeClass;
+
+    private XGBoostModel(int numFeatures, int numClasses, boolean binary, float baseMargin, Tree[] trees,
+            int[] treeClass) {
+        this.numFeatures = numFeatures;
+        this.numClasses = numClasses;
+        this.binary = binary;
+        this.baseMargin = baseMargin;
+        this.trees = trees;
+        this.treeClass = treeClass;
+    }
+
+    /**
+     * Parses a model from its JSON form.
+     *
+     * @throws IOException              if the JSON cannot be read
+     * @throws IllegalArgumentException if the model uses an unsupported booster,
+     *                                  objective or split type
+     */
+    static XGBoostModel load(InputStream json, ObjectMapper objectMapper) throws IOException {
+        JsonNode learner = objectMapper.readTree(json).path("learner");
+        JsonNode params = learner.path("learner_model_param");
+        int numFeatures = params.path("num_feature").asInt();
+        int numClass = params.path("num_class").asInt();
+        float baseScore = Float.parseFloat(params.path("base_score").asText("0.5"));
+
+        String objective = learner.path("objective").path("name").asText();
+        boolean binary;
+        if (objective.equals("multi:softprob") || objective.equals("multi:softmax")) {
+            binary = false;
+        } else if (objective.equals("binary:logistic")) {
+            binary = true;
+        } else {
+            throw new IllegalArgumentException("Unsupported XGBoost objective: " + objective);
+        }
+        int numClasses = binary ? 2 : numClass;
+        // Softmax không đổi khi cộng cùng một hằng số cho mọi lớp, nên base_score chỉ cần cho binary
+        float baseMargin = binary ? (float) Math.log(baseScore / (1 - baseScore)) : 0f;
+
+        JsonNode booster = learner.path("gradient_booster");
+        if (!booster.path("name").asText().equals("gbtree")) {
+            throw new IllegalArgumentException("Unsupported XGBoost booster: " + booster.path("name").asText());
+        }
+        JsonNode model = booster.path("model");
+        JsonNode treeNodes = model.path("trees");
+        JsonNode treeInfo = model.path("tree_info");
+
+        // Như Python: iteration_range=(0, best_iteration + 1) khi mô hình có best_iteration
+        int treeCount = treeNodes.size();
+        int bestIteration = learner.path("attributes").path("best_iteration").asInt(0);
+        if (bestIteration > 0) {
+            int perIteration = (binary ? 1 : numClass)
+                    * Math.max(1, model.path("gbtree_model_param").path("num_parallel_tree").asInt(1));
+            treeCount = Math.min(treeCount, (bestIteration + 1) * perIteration);
+        }
+
+        Tree[] trees = new Tree[treeCount];
+        int[] treeClass = new int[treeCount];
+        for (int t = 0; t < treeCount; t++) {
+            trees[t] = Tree.of(treeNodes.get(t));
+            treeClass[t] = binary ? 1 : treeInfo.get(t).asInt();
+        }
+        return new XGBoostModel(numFeatures, numClasses, binary, baseMargin, trees, treeClass);
+    }
+
+    int numFeatures() {
+        return numFeatures;
+    }
+
+    int numClasses() {
+        return numClasses;
+    }
+
+    /**
+     * Computes the class probabilities of one row.
+     *
+     * @param features the dense feature vector; NaN marks a missing value
+     * @return the probability of each class, indexed by encoded label
+     */
+    double[] predict(float[] features) {
+        if (features.length != numFeatures) {
+            throw new IllegalArgumentException(
+                    "Expected " + numFeatures + " features, got " + features.length);
+        }
+        double[] margins = new double[numClasses];
+        for (int t = 0; t < trees.length; t++) {
+            margins[treeClass[t]] += trees[t].leafValue(features);
+        }
+
+        if (binary) {
+            double p = 1 / (1 + Math.exp(-(margins[1] + baseMargin)));
+            return new double[] { 1 - p, p };
+        }
+        double max = Double.NEGATIVE_INFINITY;
+        for (double margin : margins) {
+            max = Math.max(max, margin);
+        }
+        double sum = 0;
+        for (int c = 0; c < numClasses; c++) {
+            margins[c] = Math.exp(margins[c] - max);
+            sum += margins[c];
+        }
+        for (int c = 0; c < numClasses; c++) {
+            margins[c] /= sum;
+        }
+        return margins;
+    }
+
+    /**
+     * One regression tree in XGBoost's array layout. For a leaf, left is -1
+     * and condition holds the leaf value.
+     */
+    private static final class Tree {
+        final int[] left;
+        final int[] right;
+        final int[] feature;
+        final float[] condition;
+        final boolean[] defaultLeft;
+
+        private Tree(int size) {
+            left = new int[size];
+            right = new int[size];
+            feature = new int[size];
+            condition = new float[size];
+            defaultLeft = new boolean[size];
+        }
+
+        static Tree of(JsonNode node) {
+            JsonNode splitType = node.path("split_type");
+            for (JsonNode type : splitType) {
+                if (type.asInt() != 0) {
+                    throw new IllegalArgumentException("Categorical splits are not supported");
+                }
+            }
+            JsonNode left = node.path("left_children");
+            JsonNode right = node.path("right_children");
+            JsonNode feature = node.path("split_indices");
+            JsonNode condition = node.path("split_conditions");
+            JsonNode defaultLeft = node.path("default_left");
+
+            Tree tree = new Tree(left.size());
+            for (int i = 0; i < left.size(); i++) {
+                tree.left[i] = left.get(i).asInt();
+                tree.right[i] = right.get(i).asInt();
+                tree.feature[i] = feature.get(i).asInt();
+                tree.condition[i] = (float) condition.get(i).asDouble();
+                tree.defaultLeft[i] = defaultLeft.get(i).asInt() != 0;
+            }
+            return tree;
+        }
+
+        float leafValue(float[] features) {
+            int node = 0;
+            while (left[node] != -1) {
+                float value = features[feature[node]];
+                if (Float.isNaN(value)) {
+                    node = defaultLeft[node] ? left[node] : right[node];
+                } else {
+                    node = value < condition[node] ? left[node] : right[node];
+                }
+            }
+            return condition[node];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.prediction.backend.validator;
+
+import java.time.LocalDate;
+
+import com.prediction.backend.exceptions.AppException;
+import com.prediction.backend.exceptions.ErrorCode;
+
+/**
+ * Validates the optional from/to date window of the statistics and chart
+ * endpoints.
+ */
+public final class DateRangeValidator {
+
+    private DateRangeValidator() {
+    }
+
+    /**
+     * Rejects a reversed window. Either bound may be null for an open window.
+     *
+     * @param from the first day of the window, or null
+     * @param to   the last day of the window, or null
+     * @throws AppException with INVALID_DATE_RANGE if from is after to
+     */
+    public static void check(LocalDate from, LocalDate to) {
+        // Khoảng thời gian ngược (from sau to) là lỗi của client
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new AppException(ErrorCode.INVALID_DATE_RANGE);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.prediction.backend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+/**
+ * Load test of websocket.broker.mode=relay with two backend instances. Each
+ * instance is the broker relay that WebSocketConfig registers, connected to
+ * the same stand-in broker; clients subscribe to a conversation topic on both
+ * instances and one instance publishes. Every subscriber must receive every
+ * message whichever instance it is connected to.
+ */
+class BrokerRelayFanOutTests {
+
+	private static final Logger log = LoggerFactory.getLogger(BrokerRelayFanOutTests.class);
+	private static final String TOPIC = "/topic/conversations/load-test";
+	private static final int MESSAGES = 200;
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	private StompTestBroker broker;
+	private final List<Instance> instances = new ArrayList<>();
+
+	@BeforeEach
+	void startBroker() throws Exception {
+		broker = new StompTestBroker();
+	}
+
+	@AfterEach
+	void stop() throws Exception {
+		instances.forEach(instance -> instance.relay.stop());
+		broker.close();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 10, 50 })
+	void everySubscriberOnEveryInstanceReceivesEveryMessage(int subscribersPerInstance) throws Exception {
+		Instance publisher = start("a");
+		Instance other = start("b");
+		publisher.subscribe(subscribersPerInstance);
+		other.subscribe(subscribersPerInstance);
+		await(() -> broker.subscriptionCount(TOPIC) == 2 * subscribersPerInstance);
+
+		int expected = 2 * subscribersPerInstance * MESSAGES;
+		CountDownLatch delivered = new CountDownLatch(expected);
+		publisher.onMessage = delivered::countDown;
+		other.onMessage = delivered::countDown;
+
+		long start = System.nanoTime();
+		for (int i = 0; i < MESSAGES; i++) {
+			publisher.publish("{\"content\":\"message " + i + "\"}");
+		}
+		assertTrue(delivered.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS),
+				(expected - delivered.getCount()) + " of " + expected + " deliveries arrived");
+		long elapsed = System.nanoTime() - start;
+
+		assertEquals(subscribersPerInstance * MESSAGES, publisher.received.get());
+		assertEquals(subscribersPerInstance * MESSAGES, other.received.get());
+		log.info("{} subscribers on 2 instances: {} deliveries in {} ms ({} deliveries/s)",
+				2 * subscribersPerInstance, expected, TimeUnit.NANOSECONDS.toMillis(elapsed),
+				expected * 1_000_000_000L / elapsed);
+	}
+
+	private Instance start(String name) throws Exception {
+		ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+		ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+		ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+		StompBrokerRelayMessageHandler relay = new StompBrokerRelayMessageHandler(clientInbound, clientOutbound,
+				brokerChannel, List.of("/topic"));
+		relay.setRelayHost("127.0.0.1");
+		relay.setRelayPort(broker.port());
+		relay.setSystemHeartbeatSendInterval(0);
+		relay.setSystemHeartbeatReceiveInterval(0);
+
+		Instance instance = new Instance(name, relay);
+		clientOutbound.subscribe(instance::deliver);
+		relay.start();
+		instances.add(instance);
+		await(relay::isBrokerAvailable);
+		return instance;
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met within " + TIMEOUT);
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * One backend instance: its broker relay and the client sessions connected
+	 * to it.
+	 */
+	private static final class Instance {
+		final String name;
+		final StompBrokerRelayMessageHandler relay;
+		final AtomicInteger connected = new AtomicInteger();
+		final AtomicInteger received = new AtomicInteger();
+		volatile Runnable onMessage = () -> {
+		};
+
+		Instance(String name, StompBrokerRelayMessageHandler relay) {
+			this.name = name;
+			this.relay = relay;
+		}
+
+		void subscribe(int sessions) throws InterruptedException {
+			for (int i = 0; i < sessions; i++) {
+				StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+				connect.setSessionId(sessionId(i));
+				connect.setAcceptVersion("1.2");
+				connect.setHeartbeat(0, 0);
+				relay.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+			}
+			await(() -> connected.get() == sessions);
+			for (int i = 0; i < sessions; i++) {
+				StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+				subscribe.setSessionId(sessionId(i));
+				subscribe.setSubscriptionId("sub-" + i);
+				subscribe.setDestination(TOPIC);
+				relay.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+			}
+		}
+
+		// Như SimpMessagingTemplate.convertAndSend: gửi qua phiên hệ thống của relay
+		void publish(String payload) {
+			SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			headers.setDestination(TOPIC);
+			relay.handleMessage(MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8),
+					headers.getMessageHeaders()));
+		}
+
+		void deliver(Message<?> message) {
+			// Relay chuyển nguyên frame của broker về phiên client, kèm lệnh STOMP
+			StompCommand command = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class).getCommand();
+			if (command == StompCommand.CONNECTED) {
+				connected.incrementAndGet();
+			} else if (command == StompCommand.MESSAGE) {
+				received.incrementAndGet();
+				onMessage.run();
+			}
+		}
+
+		private String sessionId(int i) {
+			return name + "-session-" + i;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package com.prediction.backend.config;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process STOMP 1.2 broker standing in for the external broker in
+ * tests. It accepts any login and fans every SEND out to the subscriptions on
+ * exactly the same destination, over plain TCP like the broker relay expects.
+ * Heart-beats are not supported and must be disabled by the clients.
+ */
+final class StompTestBroker implements AutoCloseable {
+
+	private final ServerSocket server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+	private final List<Connection> connections = new CopyOnWriteArrayList<>();
+	private final AtomicLong messageIds = new AtomicLong();
+
+	StompTestBroker() throws IOException {
+		server = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+		executor.submit(this::acceptLoop);
+	}
+
+	int port() {
+		return server.getLocalPort();
+	}
+
+	int subscriptionCount(String destination) {
+		List<Subscription> list = subscriptions.get(destination);
+		return list != null ? list.size() : 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+		for (Connection connection : connections) {
+			connection.close();
+		}
+		executor.shutdownNow();
+	}
+
+	private void acceptLoop() {
+		while (!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				socket.setTcpNoDelay(true);
+				Connection connection = new Connection(socket);
+				connections.add(connection);
+				executor.submit(() -> serve(connection));
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private void serve(Connection connection) {
+		try {
+			Frame frame;
+			while ((frame = connection.read()) != null) {
+				handle(connection, frame);
+				if (frame.command.equals("DISCONNECT")) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// Kết nối bị đóng
+		} finally {
+			subscriptions.values().forEach(list -> list.removeIf(s -> s.connection == connection));
+			connections.remove(connection);
+			connection.close();
+		}
+	}
+
+	private void handle(Connection connection, Frame frame) throws IOException {
+		switch (frame.command) {
+			case "CONNECT", "STOMP" -> connection.write("CONNECTED",
+					Map.of("version", "1.2", "heart-beat", "0,0"), new byte[0]);
+			case "SUBSCRIBE" -> subscriptions
+					.computeIfAbsent(frame.headers.get("destination"), d -> new CopyOnWriteArrayList<>())
+					.add(new Subscription(connection, frame.headers.get("id")));
+			case "UNSUBSCRIBE" -> subscriptions.values().forEach(list -> list
+					.removeIf(s -> s.connection == connection && s.id.equals(frame.headers.get("id"))));
+			case "SEND" -> {
+				String destination = frame.headers.get("destination");
+				for (Subscription subscription : subscriptions.getOrDefault(destination, List.of())) {
+					Map<String, String> headers = new LinkedHashMap<>();
+					headers.put("destination", destination);
+					headers.put("subscription", subscription.id);
+					headers.put("message-id", Long.toString(messageIds.incrementAndGet()));
+					if (frame.headers.containsKey("content-type")) {
+						headers.put("content-type", frame.headers.get("content-type"));
+					}
+					try {
+						subscription.connection.write("MESSAGE", headers, frame.body);
+					} catch (IOException e) {
+						// Người nhận đã ngắt kết nối
+					}
+				}
+			}
+			default -> {
+			}
+		}
+		if (frame.headers.containsKey("receipt")) {
+			connection.write("RECEIPT", Map.of("receipt-id", frame.headers.get("receipt")), new byte[0]);
+		}
+	}
+
+	private record Subscription(Connection connection, String id) {
+	}
+
+	private record Frame(String command, Map<String, String> headers, byte[] body) {
+	}
+
+	private static final class Connection {
+		private final Socket socket;
+		private final InputStream in;
+		private final OutputStream out;
+
+		Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new BufferedInputStream(socket.getInputStream());
+			this.out = socket.getOutputStream();
+		}
+
+		Frame read() throws IOException {
+			String command;
+			do {
+				command = readLine();
+				if (command == null) {
+					return null;
+				}
+			} while (command.isEmpty()); // Bỏ qua các dòng trống (heart-beat)
+
+			Map<String, String> headers = new LinkedHashMap<>();
+			String line;
+			while ((line = readLine()) != null && !line.isEmpty()) {
+				int colon = line.indexOf(':');
+				// Theo STOMP, header lặp lại thì giá trị đầu tiên được dùng
+				headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+			}
+
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			String contentLength = headers.get("content-length");
+			if (contentLength != null) {
+				body.write(in.readNBytes(Integer.parseInt(contentLength)));
+				in.read(); // NULL kết thúc frame
+			} else {
+				int b;
+				while ((b = in.read()) > 0) {
+					body.write(b);
+				}
+			}
+			return new Frame(command, headers, body.toByteArray());
+		}
+
+		private String readLine() throws IOException {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int b;
+			while ((b = in.read()) != '\n') {
+				if (b < 0) {
+					return null;
+				}
+				if (b != '\r') {
+					line.write(b);
+				}
+			}
+			return line.toString(StandardCharsets.UTF_8);
+		}
+
+		void write(String command, Map<String, String> headers, byte[] body) throws IOException {
+			StringBuilder frame = new StringBuilder(command).append('\n');
+			headers.forEach((name, value) -> frame.append(name).append(':').append(value).append('\n'));
+			frame.append("content-length:").append(body.length).append("\n\n");
+			synchronized (this) {
+				out.write(frame.toString().getBytes(StandardCharsets.UTF_8));
+				out.write(body);
+				out.write(0);
+				out.flush();
+			}
+		}
+
+		void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Đã đóng
+			}
+		}
+	}
+}
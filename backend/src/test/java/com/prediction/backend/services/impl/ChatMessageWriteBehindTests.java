@@ -0,0 +1,118 @@
+package com.prediction.backend.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.prediction.backend.exceptions.AppException;
+import com.prediction.backend.exceptions.ErrorCode;
+import com.prediction.backend.models.ChatMessage;
+import com.prediction.backend.models.Conversation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that a full write-behind queue rejects senders after the enqueue
+ * timeout and keeps writing once the database catches up, and that a batch
+ * updates the inbox counters of its conversations.
+ */
+class ChatMessageWriteBehindTests {
+
+	private static final Duration ENQUEUE_TIMEOUT = Duration.ofMillis(100);
+
+	private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+	private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+	private ChatMessageWriteBehind writer;
+
+	@AfterEach
+	void shutdown() throws Exception {
+		writer.shutdown();
+	}
+
+	@Test
+	void fullQueueRejectsAfterTimeoutAndRecovers() throws Exception {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			// Giữ bộ ghi ở lô đầu tiên cho đến khi được thả
+			writing.countDown();
+			assertTrue(release.await(10, TimeUnit.SECONDS));
+			List<?> batch = invocation.getArgument(0);
+			batch.forEach(message -> written.add(((ChatMessage) message).getContent()));
+			return batch;
+		}).when(mongoTemplate).insert(anyList(), eq(ChatMessage.class));
+		writer = new ChatMessageWriteBehind(mongoTemplate, new SimpleMeterRegistry(), true, 2, 10,
+				Duration.ofMillis(10), ENQUEUE_TIMEOUT, Duration.ofSeconds(10));
+
+		writer.enqueue(message("m1"));
+		assertTrue(writing.await(10, TimeUnit.SECONDS));
+		writer.enqueue(message("m2"));
+		writer.enqueue(message("m3"));
+
+		long start = System.nanoTime();
+		AppException rejected = assertThrows(AppException.class, () -> writer.enqueue(message("m4")));
+		assertEquals(ErrorCode.CHAT_QUEUE_FULL, rejected.getErrorCode());
+		assertTrue(System.nanoTime() - start >= ENQUEUE_TIMEOUT.toNanos());
+
+		release.countDown();
+		writer.enqueue(message("m5"));
+		writer.shutdown();
+		assertEquals(List.of("m1", "m2", "m3", "m5"), written);
+	}
+
+	@Test
+	void batchIncrementsUnreadCountByItsMessageCount() throws Exception {
+		Conversation conversation = new Conversation();
+		conversation.setConversationId("c1");
+		conversation.setParticipantIds(List.of("alice", "bob"));
+		when(mongoTemplate.find(any(Query.class), eq(Conversation.class))).thenReturn(List.of(conversation));
+		BulkOperations bulk = mock(BulkOperations.class);
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Conversation.class)).thenReturn(bulk);
+		// max-wait dài và max-batch = 3: ba tin nhắn được ghi trong cùng một lô
+		writer = new ChatMessageWriteBehind(mongoTemplate, new SimpleMeterRegistry(), true, 10, 3,
+				Duration.ofSeconds(5), ENQUEUE_TIMEOUT, Duration.ofSeconds(10));
+
+		writer.enqueue(message("m1"));
+		writer.enqueue(message("m2"));
+		writer.enqueue(message("m3"));
+
+		verify(bulk, timeout(5000)).execute();
+		ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+		verify(bulk, times(2)).updateOne(any(Query.class), updates.capture());
+		Document counters = updates.getAllValues().get(0).getUpdateObject();
+		assertEquals(new Document("unreadCounts.bob", 3), counters.get("$inc"));
+	}
+
+	private static ChatMessage message(String content) {
+		ChatMessage message = new ChatMessage();
+		message.setConversationId("c1");
+		message.setSenderId("alice");
+		message.setContent(content);
+		return message;
+	}
+}
@@ -0,0 +1,99 @@
+package com.prediction.backend.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.prediction.backend.dto.response.ChatHistoryPageResponse;
+import com.prediction.backend.exceptions.AppException;
+import com.prediction.backend.exceptions.ErrorCode;
+import com.prediction.backend.models.ChatMessage;
+import com.prediction.backend.repositories.ChatMessageRepository;
+import com.prediction.backend.repositories.ConversationRepository;
+import com.prediction.backend.repositories.UserRepository;
+import com.prediction.backend.services.ChatBotService;
+import com.prediction.backend.services.ConversationStateStore;
+import com.prediction.backend.services.PredictionService;
+import com.prediction.backend.services.SearchingService;
+import com.prediction.backend.services.SymptomSuggestionService;
+
+/**
+ * Checks that the history cursor returned with a page loads the next older
+ * page, and that a cursor the service did not issue is rejected.
+ */
+class ChatServiceImplTests {
+
+	private final ChatMessageRepository messageRepository = mock(ChatMessageRepository.class);
+	private ChatServiceImpl chatService;
+
+	@BeforeEach
+	void createService() {
+		chatService = new ChatServiceImpl(messageRepository, mock(ConversationRepository.class),
+				mock(UserRepository.class), mock(ConversationStateStore.class), mock(ChatBotService.class),
+				mock(PredictionService.class), mock(SearchingService.class), mock(SymptomSuggestionService.class),
+				mock(ChatMessageWriteBehind.class));
+		ReflectionTestUtils.setField(chatService, "historyMaxPageSize", 200);
+	}
+
+	@Test
+	void cursorLoadsTheNextOlderPage() {
+		ChatMessage m1 = message("m1", 1_000);
+		ChatMessage m2 = message("m2", 2_000);
+		ChatMessage m3 = message("m3", 2_000);
+		ChatMessage m4 = message("m4", 4_000);
+		ChatMessage m5 = message("m5", 5_000);
+		// Kho trả về mới nhất trước, thêm một message để biết còn trang cũ hơn
+		when(messageRepository.findBefore("c1", null, null, 3)).thenReturn(List.of(m5, m4, m3));
+		when(messageRepository.findBefore("c1", Instant.ofEpochMilli(4_000), "m4", 3))
+				.thenReturn(List.of(m3, m2, m1));
+		when(messageRepository.findBefore("c1", Instant.ofEpochMilli(2_000), "m2", 3))
+				.thenReturn(List.of(m1));
+
+		ChatHistoryPageResponse latest = chatService.getChatHistoryPage("c1", null, 2);
+		assertEquals(List.of(m4, m5), latest.getMessages());
+		assertTrue(latest.isHasMore());
+
+		ChatHistoryPageResponse older = chatService.getChatHistoryPage("c1", latest.getNextCursor(), 2);
+		assertEquals(List.of(m2, m3), older.getMessages());
+		assertTrue(older.isHasMore());
+
+		ChatHistoryPageResponse oldest = chatService.getChatHistoryPage("c1", older.getNextCursor(), 2);
+		assertEquals(List.of(m1), oldest.getMessages());
+		assertFalse(oldest.isHasMore());
+		assertNull(oldest.getNextCursor());
+	}
+
+	@Test
+	void invalidCursorIsRejected() {
+		for (String cursor : List.of("not base64!", "bm8tc2VwYXJhdG9y", "YWJjOm0x")) {
+			AppException rejected = assertThrows(AppException.class,
+					() -> chatService.getChatHistoryPage("c1", cursor, 20));
+			assertEquals(ErrorCode.INVALID_HISTORY_CURSOR, rejected.getErrorCode());
+		}
+		verify(messageRepository, never()).findBefore(anyString(), any(), any(), anyInt());
+	}
+
+	private static ChatMessage message(String id, long epochMilli) {
+		ChatMessage message = new ChatMessage();
+		message.setId(id);
+		message.setConversationId("c1");
+		message.setTimestamp(Instant.ofEpochMilli(epochMilli));
+		return message;
+	}
+}
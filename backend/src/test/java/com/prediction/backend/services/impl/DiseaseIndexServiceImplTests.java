@@ -0,0 +1,83 @@
+package com.prediction.backend.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.prediction.backend.dto.DiseaseScoreDTO;
+import com.prediction.backend.models.DiseaseSymptom;
+import com.prediction.backend.repositories.DiseaseSymptomRepository;
+
+/**
+ * Checks that ranked matching scores a disease by the weight of its matched
+ * symptoms over the weight of all its symptoms, and breaks ties by the number
+ * of matched symptoms.
+ */
+class DiseaseIndexServiceImplTests {
+
+	private final DiseaseSymptomRepository repository = mock(DiseaseSymptomRepository.class);
+	private DiseaseIndexServiceImpl index;
+
+	@BeforeEach
+	void buildIndex() {
+		when(repository.findAll()).thenReturn(List.of(
+				new DiseaseSymptom("d1", "s1", 3),
+				new DiseaseSymptom("d1", "s2", 1),
+				new DiseaseSymptom("d2", "s1", 1),
+				new DiseaseSymptom("d2", "s3", 1),
+				new DiseaseSymptom("d3", "s2", 2),
+				// Trọng số null hoặc 0 được tính là 1
+				new DiseaseSymptom("d4", "s1", null),
+				new DiseaseSymptom("d4", "s2", 0),
+				new DiseaseSymptom("d4", "s3", 2)));
+		index = new DiseaseIndexServiceImpl(repository);
+		index.rebuild();
+	}
+
+	@Test
+	void ranksByMatchedWeightThenMatchCount() {
+		List<DiseaseScoreDTO> ranked = index.rankDiseases(List.of("s1", "s2", "unknown"), 10);
+
+		assertEquals(List.of("d1", "d3", "d4", "d2"), ranked.stream().map(DiseaseScoreDTO::getDiseaseId).toList());
+		assertEquals(1.0, ranked.get(0).getScore());
+		assertEquals(2L, ranked.get(0).getMatchCount());
+		assertEquals(1.0, ranked.get(1).getScore());
+		assertEquals(1L, ranked.get(1).getMatchCount());
+		assertEquals(0.5, ranked.get(2).getScore());
+		assertEquals(2L, ranked.get(2).getMatchCount());
+		assertEquals(0.5, ranked.get(3).getScore());
+		assertEquals(1L, ranked.get(3).getMatchCount());
+	}
+
+	@Test
+	void topKKeepsTheBestCandidates() {
+		List<DiseaseScoreDTO> ranked = index.rankDiseases(List.of("s1", "s2"), 3);
+
+		// d2 và d4 cùng điểm 0.5: d4 khớp nhiều triệu chứng hơn nên được giữ lại
+		assertEquals(List.of("d1", "d3", "d4"), ranked.stream().map(DiseaseScoreDTO::getDiseaseId).toList());
+	}
+
+	@Test
+	void updatesAreVisibleToRanking() {
+		index.addDiseaseSymptom("d3", "s3", 1);
+		index.removeDisease("d1");
+
+		List<DiseaseScoreDTO> ranked = index.rankDiseases(List.of("s1", "s2"), 10);
+
+		assertEquals(List.of("d3", "d4", "d2"), ranked.stream().map(DiseaseScoreDTO::getDiseaseId).toList());
+		assertEquals(2.0 / 3, ranked.get(0).getScore());
+	}
+
+	@Test
+	void emptyQueryRanksNothing() {
+		assertTrue(index.rankDiseases(List.of(), 10).isEmpty());
+		assertTrue(index.rankDiseases(List.of("s1"), 0).isEmpty());
+		assertTrue(index.rankDiseases(List.of("unknown"), 10).isEmpty());
+	}
+}
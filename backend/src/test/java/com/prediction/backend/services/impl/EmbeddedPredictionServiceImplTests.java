@@ -0,0 +1,136 @@
+package com.prediction.backend.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prediction.backend.dto.DiseasePrediction;
+import com.prediction.backend.dto.response.PredictionResponse;
+
+/**
+ * Checks the in-JVM evaluator against probabilities recorded from the native
+ * XGBoost predictor for the model in src/test/resources/xgboost.
+ */
+class EmbeddedPredictionServiceImplTests {
+
+	private static final double TOLERANCE = 1e-6;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private List<String> features;
+	private List<String> labels;
+	private List<Map<String, Object>> expected;
+
+	@BeforeEach
+	void readFixtures() throws Exception {
+		features = read("xgboost/features.json", new TypeReference<List<String>>() {
+		});
+		labels = read("xgboost/labels.json", new TypeReference<List<String>>() {
+		});
+		expected = read("xgboost/expected.json", new TypeReference<List<Map<String, Object>>>() {
+		});
+	}
+
+	@Test
+	void modelMatchesRecordedProbabilities() throws Exception {
+		XGBoostModel model;
+		try (InputStream in = new ClassPathResource("xgboost/model.json").getInputStream()) {
+			model = XGBoostModel.load(in, objectMapper);
+		}
+
+		for (Map<String, Object> sample : expected) {
+			float[] row = new float[features.size()];
+			for (Object symptom : (List<?>) sample.get("symptoms")) {
+				row[features.indexOf(symptom)] = 1f;
+			}
+			double[] actual = model.predict(row);
+			List<?> recorded = (List<?>) sample.get("probabilities");
+			for (int c = 0; c < recorded.size(); c++) {
+				assertEquals(((Number) recorded.get(c)).doubleValue(), actual[c], TOLERANCE,
+						"class " + c + " for " + sample.get("symptoms"));
+			}
+		}
+	}
+
+	@Test
+	void serviceReturnsRecordedTopPredictions() throws Exception {
+		EmbeddedPredictionServiceImpl service = new EmbeddedPredictionServiceImpl(
+				new ClassPathResource("xgboost/model.json"),
+				new ClassPathResource("xgboost/features.json"),
+				new ClassPathResource("xgboost/labels.json"));
+		service.load();
+
+		for (Map<String, Object> sample : expected) {
+			List<String> symptoms = new ArrayList<>();
+			for (Object symptom : (List<?>) sample.get("symptoms")) {
+				symptoms.add((String) symptom);
+			}
+			List<?> recorded = (List<?>) sample.get("probabilities");
+			int best = 0;
+			for (int c = 1; c < recorded.size(); c++) {
+				if (((Number) recorded.get(c)).doubleValue() > ((Number) recorded.get(best)).doubleValue()) {
+					best = c;
+				}
+			}
+
+			PredictionResponse response = service
+					.predictDisease("Nam", 30, "Hà Nội", "2024-11-20T10:00:00", symptoms, List.of(), 3)
+					.block();
+
+			assertEquals(3, response.getTop_predictions().size());
+			DiseasePrediction top = response.getTop_predictions().get(0);
+			assertEquals(labels.get(best), top.getDisease());
+			assertEquals(Math.round(((Number) recorded.get(best)).doubleValue() * 10000) / 100.0,
+					top.getProbability_percentage(), 1e-9);
+		}
+	}
+
+	@Test
+	void symptomNamesAreMatchedWithoutDiacritics() throws Exception {
+		EmbeddedPredictionServiceImpl service = new EmbeddedPredictionServiceImpl(
+				new ClassPathResource("xgboost/model.json"),
+				new ClassPathResource("xgboost/features.json"),
+				new ClassPathResource("xgboost/labels.json"));
+		service.load();
+
+		PredictionResponse exact = service
+				.predictDisease("Nam", 30, "Hà Nội", "2024-11-20T10:00:00", List.of("ho", "đau họng"), List.of(), 2)
+				.block();
+		PredictionResponse folded = service
+				.predictDisease("Nam", 30, "Hà Nội", "2024-11-20T10:00:00", List.of("Ho", "dau hong"), List.of(), 2)
+				.block();
+
+		assertEquals(exact.getTop_predictions(), folded.getTop_predictions());
+	}
+
+	@Test
+	void unknownSymptomsAreReported() throws Exception {
+		EmbeddedPredictionServiceImpl service = new EmbeddedPredictionServiceImpl(
+				new ClassPathResource("xgboost/model.json"),
+				new ClassPathResource("xgboost/features.json"),
+				new ClassPathResource("xgboost/labels.json"));
+		service.load();
+
+		PredictionResponse response = service
+				.predictDisease("Nam", 30, "Hà Nội", "2024-11-20T10:00:00", List.of("sốt", "chóng mặt"),
+						List.of("hút thuốc"), 1)
+				.block();
+
+		assertEquals(List.of("chóng mặt"), response.getUnknown_symptoms());
+		assertEquals(List.of(), response.getUnknown_risk_factors());
+	}
+
+	private <T> T read(String path, TypeReference<T> type) throws Exception {
+		try (InputStream in = new ClassPathResource(path).getInputStream()) {
+			return objectMapper.readValue(in, type);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.prediction.backend.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.prediction.backend.dto.SymptomRuleDTO;
+import com.prediction.backend.models.PatientCase;
+import com.prediction.backend.repositories.PatientCaseRepository;
+import com.prediction.backend.services.SymptomSuggestionService;
+
+/**
+ * Checks the rules mined from the pair counts of diagnosed cases, their
+ * update when a case changes, and that pruning keeps the frequent pairs.
+ */
+class RuleMiningServiceImplTests {
+
+	private final PatientCaseRepository repository = mock(PatientCaseRepository.class);
+	private final SymptomSuggestionService suggestions = mock(SymptomSuggestionService.class);
+
+	@Test
+	void rulesFollowFromThePairCounts() {
+		RuleMiningServiceImpl mining = mining(1000, patientCase("Flu", "Fever", "Cough"),
+				patientCase("Flu", "fever", "cough"), patientCase("Flu", "Fever"),
+				patientCase("Measles", "Cough", "Rash"),
+				// Ca chưa có chẩn đoán không được đếm
+				patientCase(null, "Fever", "Rash"));
+
+		List<SymptomRuleDTO> rules = publish(mining);
+
+		assertEquals(Set.of("fever->cough", "cough->fever"), names(rules));
+		SymptomRuleDTO rule = rules.get(0);
+		assertEquals(0.5, rule.getSupport(), 1e-9);
+		assertEquals(2.0 / 3, rule.getConfidence(), 1e-9);
+		assertEquals((2.0 / 3) / (3.0 / 4), rule.getLift(), 1e-9);
+	}
+
+	@Test
+	void updatedCaseMovesItsPairs() {
+		PatientCase measles = patientCase("Measles", "Cough", "Rash");
+		RuleMiningServiceImpl mining = mining(1000, patientCase("Measles", "Cough", "Rash"), measles,
+				patientCase("Flu", "Fever", "Cough"));
+		assertEquals(Set.of("rash->cough", "cough->rash"), names(publish(mining)));
+
+		PatientCase previous = patientCase("Measles", "Cough", "Rash");
+		measles.setSymptoms(new ArrayList<>(List.of("Fever", "Cough")));
+		mining.recordCase(previous, measles);
+
+		assertEquals(Set.of("fever->cough", "cough->fever"), names(publish(mining)));
+	}
+
+	@Test
+	void pruningDropsRarePairsOnly() {
+		RuleMiningServiceImpl mining = mining(2, patientCase("Flu", "A", "B"), patientCase("Flu", "A", "B"),
+				patientCase("Flu", "A", "B"), patientCase("Cold", "C", "D"), patientCase("Cold", "E", "F"));
+
+		assertEquals(Set.of("a->b", "b->a"), names(publish(mining)));
+
+		// Trừ một cặp đã bị cắt tỉa không làm thay đổi các cặp còn lại
+		mining.recordCase(patientCase("Cold", "C", "D"), null);
+		assertEquals(Set.of("a->b", "b->a"), names(publish(mining)));
+	}
+
+	private RuleMiningServiceImpl mining(int maxPairs, PatientCase... cases) {
+		when(repository.findAll(any(Pageable.class)))
+				.thenReturn(new PageImpl<>(List.of(cases), PageRequest.of(0, 1000), cases.length));
+		RuleMiningServiceImpl mining = new RuleMiningServiceImpl(repository, suggestions, 0, 2, 0.5, maxPairs);
+		mining.rebuild();
+		return mining;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<SymptomRuleDTO> publish(RuleMiningServiceImpl mining) {
+		mining.publish();
+		ArgumentCaptor<List<SymptomRuleDTO>> rules = ArgumentCaptor.forClass(List.class);
+		verify(suggestions, atLeastOnce()).publishMinedRules(rules.capture());
+		return rules.getValue();
+	}
+
+	private static Set<String> names(List<SymptomRuleDTO> rules) {
+		return rules.stream()
+				.map(rule -> rule.getAntecedents().get(0) + "->" + rule.getConsequents().get(0))
+				.collect(Collectors.toSet());
+	}
+
+	private static PatientCase patientCase(String disease, String... symptoms) {
+		PatientCase patientCase = new PatientCase();
+		patientCase.setPredictedDisease(disease);
+		patientCase.setSymptoms(new ArrayList<>(List.of(symptoms)));
+		return patientCase;
+	}
+}
@@ -0,0 +1,100 @@
+package com.prediction.backend.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.prediction.backend.models.PatientCase;
+import com.prediction.backend.repositories.PatientCaseRepository;
+
+/**
+ * Checks that updating a case moves its contribution from the old groups and
+ * day to the new ones, and that groups whose count drops to zero disappear.
+ */
+class StatisticsRollupServiceImplTests {
+
+	private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+	private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+
+	private final PatientCaseRepository repository = mock(PatientCaseRepository.class);
+	private StatisticsRollupServiceImpl rollup;
+	private PatientCase flu;
+	private PatientCase cold;
+
+	@BeforeEach
+	void buildRollup() {
+		flu = patientCase(1L, "Flu", "Hanoi", MONDAY, 34, "Fever", "Cough");
+		cold = patientCase(2L, "Cold", "Hanoi", MONDAY, 8, "Cough");
+		when(repository.findAll(any(Pageable.class)))
+				.thenReturn(new PageImpl<>(List.of(flu, cold), PageRequest.of(0, 1000), 2));
+		rollup = new StatisticsRollupServiceImpl(repository);
+		rollup.rebuild();
+	}
+
+	@Test
+	void rebuildCountsEveryCase() {
+		assertEquals(Map.of("Hanoi", Map.of("Flu", 1L, "Cold", 1L)), rollup.getLocationDiseaseCounts(null, null));
+		assertEquals(Map.of("fever", 1L, "cough", 2L), rollup.getSymptomCounts(null, null));
+		assertEquals(Map.of("30-39", 1L, "0-9", 1L), rollup.getAgeGroupCounts(MONDAY, MONDAY));
+	}
+
+	@Test
+	void updateSubtractsThePreviousStateBeforeAddingTheNewOne() {
+		PatientCase previous = rollup.snapshot(flu);
+		flu.setPredictedDisease("Cold");
+		flu.setLocation("Hue");
+		flu.setSymptoms(new ArrayList<>(List.of("Cough")));
+		flu.setCreatedAt(TUESDAY.atTime(9, 0));
+
+		rollup.recordCase(previous, flu);
+
+		assertEquals(Map.of("Hanoi", Map.of("Cold", 1L), "Hue", Map.of("Cold", 1L)),
+				rollup.getLocationDiseaseCounts(null, null));
+		// Nhóm về 0 bị xóa chứ không giữ lại với giá trị 0
+		assertEquals(Map.of("cough", 2L), rollup.getSymptomCounts(null, null));
+		assertEquals(Map.of("0-9", 1L), rollup.getAgeGroupCounts(MONDAY, MONDAY));
+		assertEquals(Map.of("30-39", 1L), rollup.getAgeGroupCounts(TUESDAY, TUESDAY));
+	}
+
+	@Test
+	void deleteOnlySubtracts() {
+		rollup.recordCase(rollup.snapshot(cold), null);
+
+		assertEquals(Map.of("Hanoi", Map.of("Flu", 1L)), rollup.getLocationDiseaseCounts(null, null));
+		assertEquals(Map.of("male", 1L), rollup.getGenderCounts(MONDAY, TUESDAY));
+	}
+
+	@Test
+	void reversedWindowIsEmpty() {
+		assertTrue(rollup.getSymptomCounts(TUESDAY, MONDAY).isEmpty());
+	}
+
+	private static PatientCase patientCase(Long id, String disease, String location, LocalDate day, int age,
+			String... symptoms) {
+		PatientCase patientCase = new PatientCase();
+		patientCase.setId(id);
+		patientCase.setPredictedDisease(disease);
+		patientCase.setLocation(location);
+		patientCase.setSeason("Spring");
+		patientCase.setGender(age > 10 ? "Male" : "Female");
+		patientCase.setAge(age);
+		patientCase.setCreatedAt(LocalDateTime.of(day, LocalTime.NOON));
+		patientCase.setSymptoms(new ArrayList<>(List.of(symptoms)));
+		return patientCase;
+	}
+}
@@ -0,0 +1,79 @@
+package com.prediction.backend.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.prediction.backend.models.Symptom;
+import com.prediction.backend.repositories.SymptomRepository;
+
+/**
+ * Checks the three resolution steps of the symptom matcher: exact term,
+ * terms contained in the name on word boundaries, and the name contained in a
+ * synonym.
+ */
+class SymptomMatcherServiceImplTests {
+
+	private final SymptomRepository repository = mock(SymptomRepository.class);
+	private SymptomMatcherServiceImpl matcher;
+
+	@BeforeEach
+	void buildMatcher() {
+		when(repository.findAll()).thenReturn(List.of(
+				symptom("fever", "Fever", "Sốt", "sốt cao; nóng sốt"),
+				symptom("headache", "Headache", "Đau đầu", null),
+				symptom("pain", "Pain", "Đau", null),
+				symptom("cough", "Cough", "Ho", "ho khan, ho có đờm")));
+		matcher = new SymptomMatcherServiceImpl(repository);
+		matcher.rebuild();
+	}
+
+	@Test
+	void exactNameOrSynonymIgnoresCaseAndDiacritics() {
+		assertEquals(List.of("fever"), matcher.resolve("SỐT"));
+		assertEquals(List.of("fever"), matcher.resolve(" fever "));
+		assertEquals(List.of("cough"), matcher.resolve("Ho khan"));
+	}
+
+	@Test
+	void containedTermsPreferTheLongestMatch() {
+		// "đau đầu" che "đau" bên trong nó; "ho" vẫn được nhận ra
+		assertEquals(List.of("headache", "cough"), matcher.resolve("bị đau đầu và ho nhiều"));
+	}
+
+	@Test
+	void containedTermsMustStartAndEndOnWordBoundaries() {
+		// "ho" nằm trong "họng" nhưng không phải một từ riêng
+		assertEquals(List.of("pain"), matcher.resolve("đau họng"));
+	}
+
+	@Test
+	void nameContainedInSynonymIsTheLastResort() {
+		assertEquals(List.of("cough"), matcher.resolve("có đờm"));
+		assertTrue(matcher.resolve("chóng mặt").isEmpty());
+	}
+
+	@Test
+	void resolveAllKeepsTheInputOrder() {
+		Map<String, List<String>> resolved = matcher.resolveAll(List.of("Ho", "Sốt", "Ho"));
+
+		assertEquals(List.of("Ho", "Sốt"), List.copyOf(resolved.keySet()));
+		assertEquals(List.of("fever"), resolved.get("Sốt"));
+	}
+
+	private static Symptom symptom(String id, String nameEn, String nameVn, String synonym) {
+		Symptom symptom = new Symptom();
+		symptom.setSymptomId(id);
+		symptom.setNameEn(nameEn);
+		symptom.setNameVn(nameVn);
+		symptom.setSynonym(synonym);
+		return symptom;
+	}
+}
@@ -0,0 +1,93 @@
+package com.prediction.backend.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.prediction.backend.dto.SymptomSuggestionDTO;
+import com.prediction.backend.dto.response.SymptomResponse;
+import com.prediction.backend.services.SymptomMatcherService;
+import com.prediction.backend.services.SymptomService;
+import com.prediction.backend.services.SymptomSuggestionService.Ranking;
+
+/**
+ * Checks the parsing of the rules file written by association_rules.py and
+ * that a rule only applies once every item of its antecedent was given.
+ */
+class SymptomSuggestionServiceImplTests {
+
+	private static final String RULES = String.join("\n",
+			"antecedents,consequents,antecedent support,support,confidence,lift",
+			"\"frozenset({'fever', 'cough'})\",\"frozenset({'sore throat'})\",0.2,0.1,0.9,3.0",
+			"\"frozenset({'fever'})\",\"frozenset({'headache'})\",0.4,0.2,0.6,1.5",
+			"\"frozenset({'fever'})\",\"frozenset({'chills', 'fever.1'})\",0.4,0.1,0.7,1.2",
+			"\"frozenset({'cough'})\",\"frozenset({'headache'})\",0.3,0.1,0.8,1.1",
+			"");
+
+	private final SymptomMatcherService matcher = mock(SymptomMatcherService.class);
+	private final SymptomService symptomService = mock(SymptomService.class);
+	private SymptomSuggestionServiceImpl suggestions;
+
+	@BeforeEach
+	void loadRules() {
+		when(matcher.resolve(anyString())).thenReturn(List.of());
+		suggestions = new SymptomSuggestionServiceImpl(
+				new ByteArrayResource(RULES.getBytes(StandardCharsets.UTF_8)), matcher, symptomService);
+		suggestions.rebuild();
+	}
+
+	@Test
+	void parseCsvLineHonoursQuotes() {
+		assertArrayEquals(new String[] { "a", "b, c", "say \"hi\"", "" },
+				SymptomSuggestionServiceImpl.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+	}
+
+	@Test
+	void parseItemsetReadsBothQuoteStyles() {
+		assertEquals(List.of("fever", "child's cough", "a'b"),
+				SymptomSuggestionServiceImpl.parseItemset("frozenset({'fever', \"child's cough\", 'a\\'b'})"));
+		assertEquals(List.of(), SymptomSuggestionServiceImpl.parseItemset("frozenset()"));
+	}
+
+	@Test
+	void ruleAppliesOnlyWithItsFullAntecedent() {
+		// Luật {fever, cough} -> sore throat chưa áp dụng khi chỉ có fever
+		assertEquals(List.of("chills", "headache"), symptoms(suggestions.suggest(List.of("fever"), 5,
+				Ranking.CONFIDENCE)));
+		assertEquals(List.of("sore throat", "headache", "chills"), symptoms(suggestions.suggest(
+				List.of("Fever", "cough"), 5, Ranking.CONFIDENCE)));
+	}
+
+	@Test
+	void eachSuggestionKeepsItsBestRule() {
+		List<SymptomSuggestionDTO> byConfidence = suggestions.suggest(List.of("fever", "cough"), 5,
+				Ranking.CONFIDENCE);
+		assertEquals(0.8, byConfidence.get(1).getConfidence());
+
+		List<SymptomSuggestionDTO> byLift = suggestions.suggest(List.of("fever", "cough"), 2, Ranking.LIFT);
+		assertEquals(List.of("sore throat", "headache"), symptoms(byLift));
+		assertEquals(1.5, byLift.get(1).getLift());
+	}
+
+	@Test
+	void unknownNamesAreMappedThroughTheCatalog() {
+		when(matcher.resolve("Sốt")).thenReturn(List.of("s1"));
+		when(symptomService.getSymptomById("s1")).thenReturn(SymptomResponse.builder().nameEn("Fever").build());
+
+		assertEquals(List.of("chills", "headache"), symptoms(suggestions.suggest(List.of("Sốt"), 5,
+				Ranking.CONFIDENCE)));
+	}
+
+	private static List<String> symptoms(List<SymptomSuggestionDTO> suggestions) {
+		return suggestions.stream().map(SymptomSuggestionDTO::getSymptom).toList();
+	}
+}